@@ -0,0 +1,56 @@
+package guru.springframework.sfgrestbrewery.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+final class BeerFixtures {
+
+    private static final BeerStyleEnum[] STYLES = BeerStyleEnum.values();
+
+    private BeerFixtures() {
+    }
+
+    static Beer beer(int id) {
+        return Beer.builder()
+                   .id(id)
+                   .version(1L)
+                   .beerName("Mango Bobs " + id)
+                   .beerStyle(STYLES[id % STYLES.length])
+                   .upc(String.format("%013d", id))
+                   .quantityOnHand(id % 5000)
+                   .price(new BigDecimal("12.95"))
+                   .createdDate(LocalDateTime.of(2021, 3, 1, 12, 0))
+                   .lastModifiedDate(LocalDateTime.of(2021, 3, 2, 12, 0))
+                   .build();
+    }
+
+    static List<Beer> beers(int count) {
+        List<Beer> beers = new ArrayList<>(count);
+
+        for (int i = 1; i <= count; i++) {
+            beers.add(beer(i));
+        }
+
+        return beers;
+    }
+
+    /**
+     * Configured the way Spring Boot configures the application's mapper.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                                         .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                                         .build();
+    }
+}
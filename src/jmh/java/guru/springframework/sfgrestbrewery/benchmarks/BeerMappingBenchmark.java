@@ -0,0 +1,74 @@
+package guru.springframework.sfgrestbrewery.benchmarks;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.mappers.DateMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single entity conversions done on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerMappingBenchmark {
+
+    private final BeerMapper beerMapper = Mappers.getMapper(BeerMapper.class);
+    private final DateMapper dateMapper = new DateMapper();
+
+    private Beer beer;
+    private BeerDto beerDto;
+    private Timestamp timestamp;
+    private OffsetDateTime offsetDateTime;
+
+    @Setup
+    public void setUp() {
+        beer = BeerFixtures.beer(42);
+        beerDto = beerMapper.beerToBeerDtoWithInventory(beer);
+        timestamp = Timestamp.valueOf(beer.getCreatedDate());
+        offsetDateTime = dateMapper.asOffsetDateTime(timestamp);
+    }
+
+    @Benchmark
+    public BeerDto beerToBeerDto() {
+        return beerMapper.beerToBeerDto(beer);
+    }
+
+    @Benchmark
+    public BeerDto beerToBeerDtoWithInventory() {
+        return beerMapper.beerToBeerDtoWithInventory(beer);
+    }
+
+    @Benchmark
+    public Beer beerDtoToBeer() {
+        return beerMapper.beerDtoToBeer(beerDto);
+    }
+
+    @Benchmark
+    public OffsetDateTime asOffsetDateTime() {
+        return dateMapper.asOffsetDateTime(timestamp);
+    }
+
+    @Benchmark
+    public Timestamp asTimestamp() {
+        return dateMapper.asTimestamp(offsetDateTime);
+    }
+}
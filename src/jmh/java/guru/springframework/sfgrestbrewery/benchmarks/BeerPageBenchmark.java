@@ -0,0 +1,91 @@
+package guru.springframework.sfgrestbrewery.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPage;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Building a {@link BeerPagedList} from entities and moving it through Jackson, as {@code listBeers} does, and the
+ * same page as the lean {@link BeerPage} envelope.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerPageBenchmark {
+
+    private static final long TOTAL_ELEMENTS = 100_000;
+
+    @Param({"25", "250", "2500"})
+    int pageSize;
+
+    private final BeerMapper beerMapper = Mappers.getMapper(BeerMapper.class);
+    private final ObjectMapper objectMapper = BeerFixtures.objectMapper();
+
+    private List<Beer> beers;
+    private BeerPagedList page;
+    private byte[] json;
+    private BeerPage leanPage;
+    private byte[] leanJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        beers = BeerFixtures.beers(pageSize);
+        page = mapPage();
+        json = objectMapper.writeValueAsBytes(page);
+        leanPage = BeerPage.of(page, false);
+        leanJson = objectMapper.writeValueAsBytes(leanPage);
+    }
+
+    @Benchmark
+    public BeerPagedList mapPage() {
+        List<BeerDto> content = beers.stream()
+                                     .map(beerMapper::beerToBeerDto)
+                                     .collect(Collectors.toList());
+
+        return new BeerPagedList(content, PageRequest.of(0, pageSize), TOTAL_ELEMENTS);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public BeerPagedList decode() throws IOException {
+        return objectMapper.readValue(json, BeerPagedList.class);
+    }
+
+    @Benchmark
+    public byte[] encodeLean() throws IOException {
+        return objectMapper.writeValueAsBytes(leanPage);
+    }
+
+    @Benchmark
+    public BeerPage decodeLean() throws IOException {
+        return objectMapper.readValue(leanJson, BeerPage.class);
+    }
+}
@@ -0,0 +1,76 @@
+package guru.springframework.sfgrestbrewery.load;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * One stack of the beer API. v1 and v2 expose the same resources under different prefixes, so both are driven by
+ * the same requests. Responses are reduced to their status; bodies are read and released so that encoding and
+ * transfer are part of the measured latency.
+ */
+class BeerApiClient {
+
+    private final String name;
+    private final String beerPath;
+    private final String beerUpcPath;
+    private final WebClient webClient;
+
+    BeerApiClient(String name, WebClient webClient) {
+        this.name = name;
+        this.beerPath = "/api/" + name + "/beer";
+        this.beerUpcPath = "/api/" + name + "/beerUpc";
+        this.webClient = webClient;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Mono<HttpStatus> getById(Integer id) {
+        return exchange(webClient.get()
+                                 .uri(beerPath + "/{id}", id)
+                                 .accept(MediaType.APPLICATION_JSON));
+    }
+
+    Mono<HttpStatus> getByUpc(String upc) {
+        return exchange(webClient.get()
+                                 .uri(beerUpcPath + "/{upc}", upc)
+                                 .accept(MediaType.APPLICATION_JSON));
+    }
+
+    Mono<HttpStatus> list(int pageNumber, int pageSize) {
+        return exchange(webClient.get()
+                                 .uri(uriBuilder -> uriBuilder.path(beerPath)
+                                                              .queryParam("pageNumber", pageNumber)
+                                                              .queryParam("pageSize", pageSize)
+                                                              .build())
+                                 .accept(MediaType.APPLICATION_JSON));
+    }
+
+    Mono<HttpStatus> save(BeerDto beerDto) {
+        return exchange(webClient.post()
+                                 .uri(beerPath)
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .bodyValue(beerDto));
+    }
+
+    Mono<HttpStatus> update(Integer id, BeerDto beerDto) {
+        return exchange(webClient.put()
+                                 .uri(beerPath + "/{id}", id)
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .bodyValue(beerDto));
+    }
+
+    Mono<HttpStatus> delete(Integer id) {
+        return exchange(webClient.delete()
+                                 .uri(beerPath + "/{id}", id));
+    }
+
+    private Mono<HttpStatus> exchange(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> response.releaseBody()
+                                                          .thenReturn(response.statusCode()));
+    }
+}
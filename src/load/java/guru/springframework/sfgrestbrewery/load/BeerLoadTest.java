@@ -0,0 +1,265 @@
+package guru.springframework.sfgrestbrewery.load;
+
+import guru.springframework.sfgrestbrewery.SfgReactiveBreweryApplication;
+import guru.springframework.sfgrestbrewery.web.model.BeerBulkResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop load generator for the v1 (annotated controller) and v2 (functional routes) beer APIs.
+ *
+ * Starts the application in process on a random port with H2 unless {@code --base-url} is given, bulk loads seed
+ * beers through v2, then drives each stack in turn with the configured operation mix and prints throughput and
+ * latency percentiles per operation. Each of {@code --concurrency} workers issues its next request as soon as the
+ * previous one completes, so latencies are those seen at that concurrency; when running in process the client
+ * shares the machine with the server. See {@link LoadOptions} for arguments.
+ */
+public class BeerLoadTest {
+
+    private static final BeerStyleEnum[] STYLES = BeerStyleEnum.values();
+
+    private final LoadOptions options;
+    private final WebClient webClient;
+    private final Queue<String> createdUpcs = new ConcurrentLinkedQueue<>();
+    private final AtomicLong upcSequence = new AtomicLong();
+    private final String upcPrefix = "L" + Long.toString(System.currentTimeMillis(), 36) + "-";
+
+    private List<BeerDto> seedBeers;
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+
+    BeerLoadTest(LoadOptions options, String baseUrl) {
+        this.options = options;
+        // headroom over the worker count: a worker may ask for its next connection before the previous one is
+        // back in the pool, and waiting for one would show up as server latency
+        ConnectionProvider connections = ConnectionProvider.builder("load")
+                                                           .maxConnections(options.getConcurrency() * 2)
+                                                           .build();
+        this.webClient = WebClient.builder()
+                                  .baseUrl(baseUrl)
+                                  .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                                  .build();
+
+        List<Map.Entry<LoadOperation, Integer>> mix = options.getMix()
+                                                              .entrySet()
+                                                              .stream()
+                                                              .filter(entry -> entry.getValue() > 0)
+                                                              .collect(Collectors.toList());
+        this.operations = new LoadOperation[mix.size()];
+        this.cumulativeWeights = new int[mix.size()];
+
+        int weight = 0;
+        for (int i = 0; i < mix.size(); i++) {
+            weight += mix.get(i).getValue();
+            operations[i] = mix.get(i).getKey();
+            cumulativeWeights[i] = weight;
+        }
+    }
+
+    public static void main(String[] args) {
+        LoadOptions options = LoadOptions.parse(args);
+        ConfigurableApplicationContext application = null;
+        String baseUrl = options.getBaseUrl();
+
+        if (baseUrl == null) {
+            application = startApplication();
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) application).getWebServer()
+                                                                                       .getPort();
+        }
+
+        try {
+            new BeerLoadTest(options, baseUrl).run();
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // the default debug logging of SQL and HTTP traffic would dominate the measurements
+        return new SpringApplicationBuilder(SfgReactiveBreweryApplication.class).run("--server.port=0",
+                                                                                      "--logging.level.guru.springframework.sfgrestbrewery=info",
+                                                                                      "--logging.level.reactor.netty.http=info",
+                                                                                      "--logging.level.org.springframework.data.r2dbc=info",
+                                                                                      "--logging.level.org.springframework.r2dbc=info",
+                                                                                      "--logging.level.io.r2dbc=info");
+    }
+
+    void run() {
+        seedBeers = seed(options.getSeedBeers());
+        System.out.printf("Seeded %d beers, %d workers, mix %s%n", seedBeers.size(), options.getConcurrency(), options.getMix());
+
+        for (String api : options.getApis()) {
+            BeerApiClient client = new BeerApiClient(api, webClient);
+
+            drive(client, options.getWarmup(), new LatencyReport());
+
+            LatencyReport report = new LatencyReport();
+            long start = System.nanoTime();
+            drive(client, options.getDuration(), report);
+
+            report.print(api, Duration.ofNanos(System.nanoTime() - start), System.out);
+        }
+    }
+
+    private List<BeerDto> seed(int count) {
+        Flux<BeerDto> beers = Flux.range(0, count)
+                                  .map(i -> newBeer());
+
+        return webClient.post()
+                        .uri("/api/v2/beer/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(beers, BeerDto.class)
+                        .retrieve()
+                        .bodyToFlux(BeerBulkResult.class)
+                        .filter(result -> result.getStatus() == BeerBulkResult.Status.CREATED)
+                        .flatMap(result -> webClient.get()
+                                                    .uri("/api/v2/beer/{id}", result.getId())
+                                                    .retrieve()
+                                                    .bodyToMono(BeerDto.class), 16)
+                        .collectList()
+                        .block();
+    }
+
+    private void drive(BeerApiClient client, Duration duration, LatencyReport report) {
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        Flux.range(0, options.getConcurrency())
+            .flatMap(worker -> Mono.defer(() -> next(client, report))
+                                   .repeat(() -> System.nanoTime() < deadline)
+                                   .then(), options.getConcurrency())
+            .blockLast();
+    }
+
+    private Mono<HttpStatus> next(BeerApiClient client, LatencyReport report) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LoadOperation operation = pick(random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]));
+        BeerDto beer = seedBeers.get(random.nextInt(seedBeers.size()));
+
+        switch (operation) {
+            case GET_BY_ID:
+                return timed(operation, client.getById(beer.getId()), report);
+            case GET_BY_UPC:
+                return timed(operation, client.getByUpc(beer.getUpc()), report);
+            case LIST:
+                return timed(operation, client.list(random.nextInt(Math.max(seedBeers.size() / options.getPageSize(), 1)),
+                                                    options.getPageSize()), report);
+            case SAVE:
+                BeerDto newBeer = newBeer();
+                return timed(operation, client.save(newBeer), report).doOnNext(status -> {
+                    if (status.is2xxSuccessful()) {
+                        createdUpcs.add(newBeer.getUpc());
+                    }
+                });
+            case UPDATE:
+                return timed(operation, client.update(beer.getId(), update(beer)), report);
+            case DELETE:
+                return deletable().flatMap(id -> timed(operation, client.delete(id), report));
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    private LoadOperation pick(int weight) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (weight < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+
+        return operations[operations.length - 1];
+    }
+
+    private Mono<HttpStatus> timed(LoadOperation operation, Mono<HttpStatus> request, LatencyReport report) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+
+            return request.doOnNext(status -> report.record(operation, start, status.is2xxSuccessful()))
+                          .onErrorResume(e -> {
+                              report.record(operation, start, false);
+                              return Mono.empty();
+                          });
+        });
+    }
+
+    /**
+     * Id of a beer this run created, created on the spot through v2 if none is left. Resolving it is not timed.
+     * v1 answers a save before the row is written, so a beer that cannot be found yet is put back for later.
+     */
+    private Mono<Integer> deletable() {
+        String upc = createdUpcs.poll();
+        Mono<String> created = upc != null ? Mono.just(upc) : create();
+
+        return created.flatMap(key -> findByUpc(key).map(BeerDto::getId)
+                                                    .switchIfEmpty(Mono.fromRunnable(() -> createdUpcs.add(key))));
+    }
+
+    private Mono<String> create() {
+        BeerDto beer = newBeer();
+
+        return webClient.post()
+                        .uri("/api/v2/beer")
+                        .bodyValue(beer)
+                        .retrieve()
+                        .toBodilessEntity()
+                        .thenReturn(beer.getUpc());
+    }
+
+    private Mono<BeerDto> findByUpc(String upc) {
+        return webClient.get()
+                        .uri("/api/v2/beerUpc/{upc}", upc)
+                        .exchangeToMono(response -> {
+                            if (response.statusCode()
+                                        .is2xxSuccessful()) {
+                                return response.bodyToMono(BeerDto.class);
+                            }
+
+                            return response.releaseBody()
+                                           .then(Mono.empty());
+                        });
+    }
+
+    private BeerDto newBeer() {
+        long sequence = upcSequence.incrementAndGet();
+
+        return BeerDto.builder()
+                      .beerName("Load Test " + sequence)
+                      .beerStyle(STYLES[(int) (sequence % STYLES.length)].name())
+                      .upc(upcPrefix + sequence)
+                      .price(new BigDecimal("9.99"))
+                      .build();
+    }
+
+    private BeerDto update(BeerDto beer) {
+        return BeerDto.builder()
+                      .beerName(beer.getBeerName())
+                      .beerStyle(beer.getBeerStyle())
+                      .upc(beer.getUpc())
+                      .price(beer.getPrice())
+                      .build();
+    }
+}
@@ -0,0 +1,76 @@
+package guru.springframework.sfgrestbrewery.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per operation latency histograms (microsecond resolution) and error counts for one run.
+ */
+class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+    private final Histogram total = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder totalErrors = new LongAdder();
+
+    LatencyReport() {
+        for (LoadOperation operation : LoadOperation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(LoadOperation operation, long startNanos, boolean success) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos), HIGHEST_TRACKABLE_MICROS);
+
+        latencies.get(operation).recordValue(micros);
+        total.recordValue(micros);
+
+        if (!success) {
+            errors.get(operation).increment();
+            totalErrors.increment();
+        }
+    }
+
+    void print(String api, Duration elapsed, PrintStream out) {
+        double seconds = elapsed.toMillis() / 1000.0;
+
+        out.println();
+        out.printf("%s - %.1fs%n", api, seconds);
+        out.printf("%-12s %10s %8s %12s %10s %10s %10s %10s%n",
+                   "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        latencies.forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                print(out, operation.name(), histogram, errors.get(operation).sum(), seconds);
+            }
+        });
+
+        print(out, "TOTAL", total, totalErrors.sum(), seconds);
+    }
+
+    private void print(PrintStream out, String label, Histogram histogram, long errorCount, double seconds) {
+        out.printf("%-12s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+                   label,
+                   histogram.getTotalCount(),
+                   errorCount,
+                   histogram.getTotalCount() / seconds,
+                   millis(histogram.getValueAtPercentile(50)),
+                   millis(histogram.getValueAtPercentile(99)),
+                   millis(histogram.getValueAtPercentile(99.9)),
+                   millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,23 @@
+package guru.springframework.sfgrestbrewery.load;
+
+/**
+ * The requests a load run mixes, with their default share of the traffic.
+ */
+enum LoadOperation {
+    GET_BY_ID(40),
+    GET_BY_UPC(20),
+    LIST(20),
+    SAVE(10),
+    UPDATE(5),
+    DELETE(5);
+
+    private final int defaultWeight;
+
+    LoadOperation(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    int getDefaultWeight() {
+        return defaultWeight;
+    }
+}
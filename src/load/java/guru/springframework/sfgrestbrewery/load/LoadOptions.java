@@ -0,0 +1,122 @@
+package guru.springframework.sfgrestbrewery.load;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Options for {@link BeerLoadTest}, given as {@code --name=value} arguments:
+ * <pre>
+ * --base-url=http://localhost:8080   target a running app instead of starting one in process
+ * --apis=v1,v2                       stacks to drive, one after the other
+ * --concurrency=32                   requests in flight
+ * --warmup=10s --duration=30s        per stack; warmup results are discarded
+ * --seed-beers=1000                  beers bulk loaded before the run
+ * --page-size=25                     page size for LIST
+ * --mix=GET_BY_ID:40,LIST:20,...     relative weights, operations left out are not run
+ * </pre>
+ */
+@Value
+@Builder
+class LoadOptions {
+
+    String baseUrl;
+    List<String> apis;
+    int concurrency;
+    Duration warmup;
+    Duration duration;
+    int seedBeers;
+    int pageSize;
+    Map<LoadOperation, Integer> mix;
+
+    static LoadOptions parse(String... args) {
+        LoadOptionsBuilder options = LoadOptions.builder()
+                                                .apis(List.of("v1", "v2"))
+                                                .concurrency(32)
+                                                .warmup(Duration.ofSeconds(10))
+                                                .duration(Duration.ofSeconds(30))
+                                                .seedBeers(1000)
+                                                .pageSize(25)
+                                                .mix(defaultMix());
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            switch (name) {
+                case "base-url":
+                    options.baseUrl(value);
+                    break;
+                case "apis":
+                    options.apis(Arrays.asList(value.split(",")));
+                    break;
+                case "concurrency":
+                    options.concurrency(Integer.parseInt(value));
+                    break;
+                case "warmup":
+                    options.warmup(duration(value));
+                    break;
+                case "duration":
+                    options.duration(duration(value));
+                    break;
+                case "seed-beers":
+                    options.seedBeers(Integer.parseInt(value));
+                    break;
+                case "page-size":
+                    options.pageSize(Integer.parseInt(value));
+                    break;
+                case "mix":
+                    options.mix(mix(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+
+        return options.build();
+    }
+
+    private static Map<LoadOperation, Integer> defaultMix() {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+
+        for (LoadOperation operation : LoadOperation.values()) {
+            mix.put(operation, operation.getDefaultWeight());
+        }
+
+        return mix;
+    }
+
+    private static Map<LoadOperation, Integer> mix(String value) {
+        return Arrays.stream(value.split(","))
+                     .map(entry -> entry.split(":"))
+                     .collect(Collectors.toMap(entry -> LoadOperation.valueOf(entry[0].trim().toUpperCase()),
+                                               entry -> Integer.valueOf(entry[1].trim()),
+                                               Integer::sum,
+                                               () -> new EnumMap<>(LoadOperation.class)));
+    }
+
+    /**
+     * Accepts plain seconds ({@code 30}) or a unit suffix ({@code 30s}, {@code 2m}).
+     */
+    private static Duration duration(String value) {
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+}
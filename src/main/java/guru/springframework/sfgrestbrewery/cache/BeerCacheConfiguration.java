@@ -0,0 +1,90 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Configuration
+@EnableConfigurationProperties(BeerCacheProperties.class)
+public class BeerCacheConfiguration {
+
+    public static final String BEER_CACHE = "beerCache";
+    public static final String BEER_UPC_CACHE = "beerUpcCache";
+    public static final String BEER_LIST_CACHE = "beerListCache";
+    public static final String BEER_COUNT_CACHE = "beerCountCache";
+
+    @Bean
+    public ReactiveCache<Integer, BeerDto> beerCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        return build(BEER_CACHE, properties.getBeer(), meterRegistry);
+    }
+
+    @Bean
+    public ReactiveCache<String, BeerDto> beerUpcCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        return build(BEER_UPC_CACHE, properties.getBeerUpc(), meterRegistry);
+    }
+
+    @Bean
+    public ReactiveCache<BeerListCacheKey, BeerPagedList> beerListCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        return build(BEER_LIST_CACHE, properties.getBeerList(), meterRegistry);
+    }
+
+    @Bean
+    public BeerCountCache beerCountCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        BeerCacheProperties.Spec spec = properties.getBeerCount();
+        Cache<BeerFilter, AtomicLong> counts = Caffeine.newBuilder()
+                                                       .maximumSize(spec.getMaximumSize())
+                                                       .expireAfterWrite(spec.getExpireAfterWrite())
+                                                       .recordStats()
+                                                       .build();
+
+        return new BeerCountCache(CaffeineCacheMetrics.monitor(meterRegistry, counts, BEER_COUNT_CACHE));
+    }
+
+    @Bean
+    public RequestCoalescer<Integer, Beer> beerByIdCoalescer(MeterRegistry meterRegistry) {
+        return register(new RequestCoalescer<>("beerById"), meterRegistry);
+    }
+
+    @Bean
+    public RequestCoalescer<String, Beer> beerByUpcCoalescer(MeterRegistry meterRegistry) {
+        return register(new RequestCoalescer<>("beerByUpc"), meterRegistry);
+    }
+
+    private <K, V> RequestCoalescer<K, V> register(RequestCoalescer<K, V> coalescer, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("beer.lookup.calls", coalescer, RequestCoalescer::callCount)
+                       .tag("lookup", coalescer.getName())
+                       .description("Point lookups that reached the coalescer")
+                       .register(meterRegistry);
+        FunctionCounter.builder("beer.lookup.coalesced", coalescer, RequestCoalescer::coalescedCount)
+                       .tag("lookup", coalescer.getName())
+                       .description("Point lookups that joined an in-flight query instead of issuing their own")
+                       .register(meterRegistry);
+        Gauge.builder("beer.lookup.in.flight", coalescer, RequestCoalescer::inFlightCount)
+             .tag("lookup", coalescer.getName())
+             .register(meterRegistry);
+
+        return coalescer;
+    }
+
+    /**
+     * Hit, miss and eviction counts are published as {@code cache.*} meters tagged with the cache name.
+     */
+    private <K, V> ReactiveCache<K, V> build(String name, BeerCacheProperties.Spec spec, MeterRegistry meterRegistry) {
+        return new ReactiveCache<>(name, CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                                                                                          .maximumSize(spec.getMaximumSize())
+                                                                                          .expireAfterWrite(spec.getExpireAfterWrite())
+                                                                                          .recordStats()
+                                                                                          .buildAsync(), name));
+    }
+}
@@ -0,0 +1,83 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts exactly the cache entries a write to a beer row can affect: its id, its UPC and the list pages whose
+ * filter matches the beer.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BeerCacheEvictor implements BeerChangeListener {
+
+    private final ReactiveCache<Integer, BeerDto> beerCache;
+    private final ReactiveCache<String, BeerDto> beerUpcCache;
+    private final ReactiveCache<BeerListCacheKey, BeerPagedList> beerListCache;
+
+    public void evict(Beer beer) {
+        if (beer == null) {
+            return;
+        }
+
+        log.debug("Evicting cache entries for Beer Id: {}, UPC: {}", beer.getId(), beer.getUpc());
+
+        beerCache.evict(beer.getId());
+        beerUpcCache.evict(beer.getUpc());
+        beerListCache.evictIf(key -> key.matches(beer));
+    }
+
+    @Override
+    public void beerCreated(Beer beer) {
+        evict(beer);
+    }
+
+    /**
+     * Walks the list cache once for the whole batch.
+     */
+    @Override
+    public void beersCreated(List<Beer> beers) {
+        log.debug("Evicting cache entries for {} created beers", beers.size());
+
+        beers.forEach(beer -> {
+            beerCache.evict(beer.getId());
+            beerUpcCache.evict(beer.getUpc());
+        });
+        beerListCache.evictIf(key -> beers.stream().anyMatch(key::matches));
+    }
+
+    /**
+     * Evicts entries for both the state before and after an update, so a changed UPC, name or style is covered.
+     */
+    @Override
+    public void beerUpdated(Beer previous, Beer current) {
+        evict(previous);
+        evict(current);
+    }
+
+    @Override
+    public void beerDeleted(Beer beer) {
+        evict(beer);
+    }
+
+    /**
+     * Without the deleted rows' UPCs and filters, UPC entries are found by id and every list page is dropped.
+     */
+    @Override
+    public void beersDeleted(Collection<Integer> beerIds) {
+        log.debug("Evicting cache entries for Beer Ids: {}", beerIds);
+
+        beerIds.forEach(beerCache::evict);
+        beerUpcCache.evictIfValue(beerDto -> beerIds.contains(beerDto.getId()));
+        beerListCache.evictAll();
+    }
+}
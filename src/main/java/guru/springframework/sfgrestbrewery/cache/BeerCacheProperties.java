@@ -0,0 +1,30 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.cache")
+public class BeerCacheProperties {
+
+    private Spec beer = new Spec(10_000, Duration.ofMinutes(10));
+    private Spec beerUpc = new Spec(10_000, Duration.ofMinutes(10));
+    private Spec beerList = new Spec(1_000, Duration.ofMinutes(1));
+    private Spec beerCount = new Spec(1_000, Duration.ofMinutes(30));
+
+    @Data
+    public static class Spec {
+        private long maximumSize;
+        private Duration expireAfterWrite;
+
+        public Spec() {
+        }
+
+        public Spec(long maximumSize, Duration expireAfterWrite) {
+            this.maximumSize = maximumSize;
+            this.expireAfterWrite = expireAfterWrite;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts writes to the catalog, so a listing read at one generation is known to be unchanged for as long as the
+ * generation is. Stock is not part of it. The generation is qualified by this instance's start time, so one from
+ * before a restart or from another instance never matches.
+ */
+@Component
+public class BeerCatalogGeneration {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong generation = new AtomicLong();
+
+    public String current() {
+        return epoch + "-" + generation.get();
+    }
+
+    /**
+     * Called once every listener has seen the write, so that a listing read at the new generation cannot come from
+     * a cache entry the write made stale.
+     */
+    public void advance() {
+        generation.incrementAndGet();
+    }
+}
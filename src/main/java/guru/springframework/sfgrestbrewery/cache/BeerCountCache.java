@@ -0,0 +1,100 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Row counts per list filter. A count is loaded once with a COUNT query and then adjusted in place on every write,
+ * so it is approximate only for writes racing the initial load; entries expire to bound any such drift.
+ */
+public class BeerCountCache implements BeerChangeListener {
+
+    private final Cache<BeerFilter, AtomicLong> counts;
+
+    public BeerCountCache(Cache<BeerFilter, AtomicLong> counts) {
+        this.counts = counts;
+    }
+
+    public Mono<Long> get(BeerFilter filter, Supplier<Mono<Long>> loader) {
+        return Mono.defer(() -> {
+            AtomicLong count = counts.getIfPresent(filter);
+
+            if (count != null) {
+                return Mono.just(count.get());
+            }
+
+            return loader.get()
+                         .map(total -> counts.asMap()
+                                             .computeIfAbsent(filter, key -> new AtomicLong(total))
+                                             .get());
+        });
+    }
+
+    @Override
+    public void beerCreated(Beer beer) {
+        adjust(beer, 1);
+    }
+
+    /**
+     * Walks the counts once for the whole batch.
+     */
+    @Override
+    public void beersCreated(List<Beer> beers) {
+        counts.asMap()
+              .forEach((filter, count) -> {
+                  long matching = beers.stream()
+                                       .filter(filter::matches)
+                                       .count();
+
+                  if (matching > 0) {
+                      count.addAndGet(matching);
+                  }
+              });
+    }
+
+    @Override
+    public void beerUpdated(Beer previous, Beer current) {
+        counts.asMap()
+              .forEach((filter, count) -> {
+                  int delta = (filter.matches(current) ? 1 : 0) - (filter.matches(previous) ? 1 : 0);
+
+                  if (delta != 0) {
+                      count.addAndGet(delta);
+                  }
+              });
+    }
+
+    @Override
+    public void beerDeleted(Beer beer) {
+        adjust(beer, -1);
+    }
+
+    /**
+     * Which filters lost a row is unknown, so every count is reloaded on next use.
+     */
+    @Override
+    public void beersDeleted(Collection<Integer> beerIds) {
+        counts.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return counts.stats();
+    }
+
+    private void adjust(Beer beer, long delta) {
+        counts.asMap()
+              .forEach((filter, count) -> {
+                  if (filter.matches(beer)) {
+                      count.addAndGet(delta);
+                  }
+              });
+    }
+}
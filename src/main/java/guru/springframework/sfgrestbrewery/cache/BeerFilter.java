@@ -0,0 +1,58 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+
+/**
+ * The filter of a beer listing: name and style equality, a price range and in-stock only. Any part may be absent.
+ */
+@Value
+@AllArgsConstructor
+public class BeerFilter {
+
+    String beerName;
+    BeerStyleEnum beerStyle;
+    BigDecimal minPrice;
+    BigDecimal maxPrice;
+    boolean inStock;
+
+    public BeerFilter(String beerName, BeerStyleEnum beerStyle) {
+        this(beerName, beerStyle, null, null, false);
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    /**
+     * Stock is neither cached nor notified when it changes, so listings and counts that depend on it are not cached.
+     */
+    public boolean isCacheable() {
+        return !inStock;
+    }
+
+    /**
+     * A listing sorted by stock depends on it just as an in-stock one does.
+     */
+    public boolean isCacheable(Sort sort) {
+        return isCacheable() && sort.getOrderFor("quantityOnHand") == null;
+    }
+
+    /**
+     * True if the given beer passes this filter, i.e. adding, changing or removing it could change a listing. A beer
+     * whose stock is not known passes the in-stock part.
+     */
+    public boolean matches(Beer beer) {
+        return (!StringUtils.hasLength(beerName) || beerName.equals(beer.getBeerName()))
+                && (beerStyle == null || beerStyle == beer.getBeerStyle())
+                && (minPrice == null || (beer.getPrice() != null && beer.getPrice().compareTo(minPrice) >= 0))
+                && (maxPrice == null || (beer.getPrice() != null && beer.getPrice().compareTo(maxPrice) <= 0))
+                && (!inStock || beer.getQuantityOnHand() == null || beer.getQuantityOnHand() > 0);
+    }
+}
@@ -0,0 +1,23 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Key for a single cached page of {@code listBeers}. {@code after} is set for keyset pages only, which are always
+ * in id order.
+ */
+@Value
+public class BeerListCacheKey {
+
+    BeerFilter filter;
+    Integer after;
+    int pageNumber;
+    int pageSize;
+    Sort sort;
+
+    public boolean matches(Beer beer) {
+        return filter.matches(beer);
+    }
+}
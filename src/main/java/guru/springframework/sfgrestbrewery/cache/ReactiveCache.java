@@ -0,0 +1,136 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Caches the values emitted by a {@link Mono} rather than the (cold) Mono itself.
+ *
+ * Empty and failed loads are not stored, so a miss is retried on the next call.
+ */
+public class ReactiveCache<K, V> {
+
+    private final String name;
+    private final AsyncCache<K, V> cache;
+
+    public ReactiveCache(String name, AsyncCache<K, V> cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Only a placeholder is created under the cache's lock; the loader is subscribed after it is released. A load
+     * that completes synchronously can run arbitrary downstream work on this thread (a pooled connection handed to
+     * a waiting writer, for instance), and that work must be free to evict from this cache.
+     */
+    public Mono<V> get(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> placeholder = new CompletableFuture<>();
+            CompletableFuture<V> value = cache.get(key, (k, executor) -> placeholder);
+
+            if (value == placeholder) {
+                loader.apply(key)
+                      .subscribe(placeholder::complete, placeholder::completeExceptionally, () -> placeholder.complete(null));
+            }
+
+            return Mono.fromFuture(value);
+        });
+    }
+
+    /**
+     * Serves what is cached, in-flight loads included, and loads all misses with one call of {@code loader},
+     * subscribed as in {@link #get}. Keys the loader leaves out are neither cached nor in the result. Caffeine holds
+     * an entry for every miss while the load is in flight, so an eviction meanwhile discards the loaded value rather
+     * than letting it be cached over the write that caused it.
+     */
+    public Mono<Map<K, V>> getAll(Collection<K> keys, Function<Set<K>, Mono<Map<K, V>>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<Map<K, V>> placeholder = new CompletableFuture<>();
+            Set<K> misses = new LinkedHashSet<>();
+            CompletableFuture<Map<K, V>> values = cache.getAll(keys, (missingKeys, executor) -> {
+                missingKeys.forEach(misses::add);
+                return placeholder;
+            });
+
+            if (!misses.isEmpty()) {
+                loader.apply(misses)
+                      .subscribe(placeholder::complete, placeholder::completeExceptionally, () -> placeholder.complete(Map.of()));
+            }
+
+            return Mono.fromFuture(values);
+        });
+    }
+
+    /**
+     * Returns the value if it is cached and already loaded. Never waits for an in-flight load.
+     */
+    public V getIfPresent(K key) {
+        CompletableFuture<V> value = cache.getIfPresent(key);
+
+        if (value == null || !value.isDone() || value.isCompletedExceptionally()) {
+            return null;
+        }
+
+        return value.getNow(null);
+    }
+
+    public void put(K key, V value) {
+        cache.synchronous()
+             .put(key, value);
+    }
+
+    public void evict(K key) {
+        if (key != null) {
+            cache.synchronous()
+                 .invalidate(key);
+        }
+    }
+
+    public void evictIf(Predicate<K> predicate) {
+        cache.asMap()
+             .keySet()
+             .removeIf(predicate);
+    }
+
+    /**
+     * Evicts loaded entries whose value matches. In-flight loads are left alone.
+     */
+    public void evictIfValue(Predicate<V> predicate) {
+        cache.asMap()
+             .values()
+             .removeIf(value -> value.isDone() && !value.isCompletedExceptionally()
+                     && value.getNow(null) != null && predicate.test(value.getNow(null)));
+    }
+
+    public void evictAll() {
+        cache.synchronous()
+             .invalidateAll();
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous()
+                    .estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous()
+                    .stats();
+    }
+
+    public AsyncCache<K, V> getNativeCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,75 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Single-flight execution: concurrent calls for the same key share one pending {@link Mono} instead of each issuing
+ * their own query. The shared call is forgotten as soon as it completes, fails or loses all of its subscribers, so
+ * results are never cached here.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final String name;
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public RequestCoalescer(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Mono<V> execute(K key, Function<K, Mono<V>> call) {
+        return Mono.defer(() -> {
+            AtomicBoolean leader = new AtomicBoolean();
+            Mono<V> shared = inFlight.computeIfAbsent(key, k -> {
+                leader.set(true);
+                return share(k, call.apply(k));
+            });
+
+            calls.increment();
+            if (!leader.get()) {
+                coalesced.increment();
+            }
+
+            return shared;
+        });
+    }
+
+    private Mono<V> share(K key, Mono<V> source) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+
+        // replay(1) so a caller joining just after the value arrived still sees it; refCount cancels the
+        // underlying call once every caller has cancelled
+        Mono<V> shared = source.doFinally(signal -> inFlight.remove(key, self.get()))
+                               .flux()
+                               .replay(1)
+                               .refCount()
+                               .next();
+        self.set(shared);
+
+        return shared;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public long callCount() {
+        return calls.sum();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+}
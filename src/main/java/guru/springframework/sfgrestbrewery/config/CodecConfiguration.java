@@ -0,0 +1,107 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary alternatives to JSON for service-to-service callers, negotiated with {@code Accept} (and
+ * {@code Content-Type} for request bodies): CBOR and Smile, mapped with the same settings as JSON. Boot applies the
+ * customizer to the annotated controllers, the functional routes and {@code WebClient.Builder} alike.
+ *
+ * Only single values are encoded this way; streams (NDJSON, server-sent events) stay JSON.
+ */
+@Configuration
+public class CodecConfiguration {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    /**
+     * The media types beers are served as, in order of preference.
+     */
+    public static final List<MediaType> MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
+
+    /**
+     * Smile is among the default codecs already, but with a mapper of its own; it is replaced so that both binary
+     * formats follow {@code spring.jackson.*}.
+     */
+    @Bean
+    public CodecCustomizer binaryCodecCustomizer(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders) {
+        ObjectMapper cborMapper = objectMapperBuilders.getObject()
+                                                      .factory(new CBORFactory())
+                                                      .build();
+        ObjectMapper smileMapper = objectMapperBuilders.getObject()
+                                                       .factory(new SmileFactory())
+                                                       .build();
+
+        return configurer -> {
+            configurer.customCodecs()
+                      .register(new CborValueEncoder(cborMapper));
+            configurer.customCodecs()
+                      .register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+            configurer.defaultCodecs()
+                      .jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE));
+            configurer.defaultCodecs()
+                      .jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE));
+        };
+    }
+
+    /**
+     * Spring's CBOR encoder has no streaming support and refuses any publisher, even the single value a response
+     * body is written from. A single value is encoded whole, and a multi-value publisher as one array, which is
+     * what the JSON encoder does for non-streaming media types too.
+     *
+     * Custom codecs are consulted before the default ones, so this one only applies once CBOR has been asked for;
+     * anything written without a negotiated media type stays JSON.
+     */
+    static class CborValueEncoder extends Jackson2CborEncoder {
+
+        CborValueEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+            return mimeType != null && super.canEncode(elementType, mimeType);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+            if (inputStream instanceof Mono) {
+                return Mono.from(inputStream)
+                           .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                           .flux();
+            }
+
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+
+            return Flux.from(inputStream)
+                       .collectList()
+                       .map(list -> encodeValue(list, bufferFactory, listType, mimeType, hints))
+                       .flux();
+        }
+    }
+}
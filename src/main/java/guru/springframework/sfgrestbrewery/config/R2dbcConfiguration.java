@@ -0,0 +1,91 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Schema initialization and the connection pool around it. The pool itself is built by Boot from the
+ * {@code spring.r2dbc.pool.*} properties.
+ */
+@Slf4j
+@Configuration
+public class R2dbcConfiguration {
+
+    private static final Duration WARM_UP_TIMEOUT = Duration.ofSeconds(30);
+
+    @Value("classpath:/schema.sql")
+    Resource resource;
+
+    /**
+     * Schema changes applied after {@code schema.sql}, in file name order. Each script must be idempotent
+     * ({@code IF NOT EXISTS}) since it runs on every start.
+     */
+    @Value("classpath*:/db/changes/*.sql")
+    Resource[] changes;
+
+    @Bean
+    ConnectionFactoryInitializer initializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(resource);
+        Arrays.stream(changes)
+              .sorted(Comparator.comparing(Resource::getFilename))
+              .forEach(populator::addScript);
+        initializer.setDatabasePopulator(populator);
+
+        return initializer;
+    }
+
+    /**
+     * Opens the pool's initial connections once every singleton exists, before the web server starts, so the first
+     * requests do not pay for connection creation.
+     */
+    @Bean
+    SmartInitializingSingleton connectionPoolWarmUp(ConnectionFactory connectionFactory) {
+        return () -> pool(connectionFactory).ifPresent(pool -> {
+            Integer created = pool.warmup()
+                                  .block(WARM_UP_TIMEOUT);
+
+            log.info("Warmed up connection pool with {} new connection(s)", created);
+        });
+    }
+
+    /**
+     * Publishes {@code r2dbc.pool.*} gauges (acquired, allocated, idle, pending) for every pooled connection factory.
+     * Boot's own binder only recognizes a bare {@link ConnectionPool}, and ours is wrapped for query metrics.
+     */
+    @Bean
+    MeterBinder connectionPoolMetrics(Map<String, ConnectionFactory> connectionFactories) {
+        return meterRegistry -> connectionFactories.forEach((name, connectionFactory) ->
+                pool(connectionFactory).filter(pool -> pool != connectionFactory)
+                                       .ifPresent(pool -> new ConnectionPoolMetrics(pool, name, Tags.empty()).bindTo(meterRegistry)));
+    }
+
+    static Optional<ConnectionPool> pool(ConnectionFactory connectionFactory) {
+        Object candidate = connectionFactory;
+
+        while (!(candidate instanceof ConnectionPool) && candidate instanceof Wrapped) {
+            candidate = ((Wrapped<?>) candidate).unwrap();
+        }
+
+        return candidate instanceof ConnectionPool ? Optional.of((ConnectionPool) candidate) : Optional.empty();
+    }
+}
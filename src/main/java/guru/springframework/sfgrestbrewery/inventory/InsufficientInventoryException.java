@@ -0,0 +1,11 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+/**
+ * A decrement that would take a beer's stock on hand below zero.
+ */
+public class InsufficientInventoryException extends RuntimeException {
+
+    public InsufficientInventoryException(Integer beerId, int quantity) {
+        super("Beer " + beerId + " has fewer than " + quantity + " on hand");
+    }
+}
@@ -0,0 +1,15 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import java.util.Map;
+
+/**
+ * Notified by {@link InventoryService} once stock changes have been written to the beer table, so state derived
+ * from stock can follow it without re-reading the table.
+ */
+public interface InventoryListener {
+
+    /**
+     * The net change written per beer id. Beers the write no longer found are left out.
+     */
+    void stockChanged(Map<Integer, Long> deltas);
+}
@@ -0,0 +1,38 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Beers listed as hot have their stock adjusted in memory and written back every flush interval, instead of with
+ * one statement per adjustment. This instance must then be the only writer of their inventory.
+ *
+ * The opt-in write-behind buffer applies to all other beers: increments are summed per beer and written in
+ * batches, trading durability of the most recent increments for fewer row updates.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.inventory")
+public class InventoryProperties {
+
+    private Set<Integer> hotBeerIds = new HashSet<>();
+    private Duration flushInterval = Duration.ofMillis(100);
+    // 0 means one per available processor
+    private int stripes = 0;
+    private WriteBehind writeBehind = new WriteBehind();
+
+    @Data
+    public static class WriteBehind {
+        private boolean enabled = false;
+        private Duration flushInterval = Duration.ofMillis(50);
+        // flush early once this many beers have buffered increments
+        private int maxBatchSize = 500;
+        // beyond this many beers in the buffer, increments are written straight away
+        private int maxBeers = 10_000;
+        // write every adjustment before acknowledging it, as if each asked to be durable
+        private boolean durable = false;
+    }
+}
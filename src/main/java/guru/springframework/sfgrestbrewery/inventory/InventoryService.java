@@ -0,0 +1,254 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adjusts a beer's stock on hand without reading it first, so concurrent adjustments never overwrite each other
+ * and stock never goes below zero.
+ *
+ * Most beers are adjusted with one guarded statement each. Beers listed in {@link InventoryProperties} as hot are
+ * loaded once into a {@link StripedInventory} and adjusted in memory; their net changes are written back with one
+ * batch statement per flush interval. Reads of a hot beer's stock from the table lag by up to that interval.
+ * Other beers go through the {@link InventoryWriteBehind} buffer when it is enabled. Either way, each change is
+ * reported to the {@link InventoryListener}s once it has been written.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(InventoryProperties.class)
+public class InventoryService implements BeerChangeListener {
+
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final BeerRepository beerRepository;
+    private final InventoryProperties properties;
+    private final List<InventoryListener> inventoryListeners;
+    private final int stripes;
+    private final Map<Integer, CompletableFuture<StripedInventory>> hotInventory = new ConcurrentHashMap<>();
+    private final InventoryWriteBehind writeBehind;
+    private volatile boolean flushing;
+
+    public InventoryService(BeerRepository beerRepository, InventoryProperties properties,
+                            List<InventoryListener> inventoryListeners, MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.properties = properties;
+        this.inventoryListeners = inventoryListeners;
+        this.stripes = properties.getStripes() > 0 ? properties.getStripes() : Runtime.getRuntime().availableProcessors();
+        this.writeBehind = properties.getWriteBehind().isEnabled()
+                ? new InventoryWriteBehind(beerRepository, properties.getWriteBehind(), this::stockChanged, meterRegistry)
+                : null;
+
+        if (!properties.getHotBeerIds().isEmpty()) {
+            flushing = true;
+            // stopped by the tick rather than disposed, so a flush in progress at shutdown is not cancelled
+            Flux.interval(properties.getFlushInterval())
+                .takeWhile(tick -> flushing)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush())
+                .subscribe();
+        }
+    }
+
+    /**
+     * Adds {@code delta}, which may be negative, to the beer's stock on hand. Fails with {@link NotFoundException}
+     * if there is no such beer and with {@link InsufficientInventoryException} if a decrement exceeds the stock.
+     *
+     * A durable adjustment is written to the table before this completes, together with anything buffered for the
+     * beer. For a hot beer only the adjustment itself is written; the rest of its net change waits for the flush.
+     */
+    public Mono<Void> adjust(Integer beerId, int delta, boolean durable) {
+        if (properties.getHotBeerIds().contains(beerId)) {
+            return hot(beerId).flatMap(inventory -> adjust(inventory, beerId, delta)
+                    .then(durable ? write(inventory, beerId, delta) : Mono.empty()));
+        }
+
+        Mono<Integer> adjusted = writeBehind != null
+                ? writeBehind.adjust(beerId, delta, durable || properties.getWriteBehind().isDurable())
+                : beerRepository.adjustQuantityOnHand(beerId, delta)
+                                .doOnNext(rowsUpdated -> {
+                                    if (rowsUpdated > 0) {
+                                        stockChanged(Map.of(beerId, (long) delta));
+                                    }
+                                });
+
+        return adjusted.flatMap(rowsUpdated -> rowsUpdated > 0 ? Mono.<Void>empty() : refused(beerId, delta));
+    }
+
+    private Mono<Void> adjust(StripedInventory inventory, Integer beerId, int delta) {
+        if (delta >= 0) {
+            inventory.increment(delta);
+        } else if (!inventory.decrement(-delta)) {
+            return Mono.error(new InsufficientInventoryException(beerId, -delta));
+        }
+
+        return Mono.empty();
+    }
+
+    /**
+     * Takes an adjustment already made in memory out of the net change the flush will write and writes it now. If
+     * that fails it is taken back, so the caller's error means the stock is as it was; should the stock it added have
+     * been sold meanwhile, it stays and is left to the flush.
+     */
+    private Mono<Void> write(StripedInventory inventory, Integer beerId, int delta) {
+        return Mono.defer(() -> {
+            inventory.undrain(-delta);
+
+            return beerRepository.addQuantitiesOnHand(Map.of(beerId, (long) delta))
+                                 .next()
+                                 .flatMap(rowsUpdated -> {
+                                     if (rowsUpdated > 0) {
+                                         stockChanged(Map.of(beerId, (long) delta));
+                                         return Mono.<Void>empty();
+                                     }
+                                     hotInventory.remove(beerId);
+                                     return Mono.<Void>error(new NotFoundException());
+                                 })
+                                 .doOnError(e -> !(e instanceof NotFoundException), e -> revert(inventory, beerId, delta));
+        });
+    }
+
+    private void revert(StripedInventory inventory, Integer beerId, int delta) {
+        if (delta < 0) {
+            inventory.increment(-delta);
+        } else if (!inventory.decrement(delta)) {
+            log.warn("Durable adjustment of hot Beer Id {} by {} failed and is left to the flush", beerId, delta);
+        }
+
+        // cancels the revert's own change to the net change, or hands the adjustment that could not be reverted back
+        inventory.undrain(delta);
+    }
+
+    /**
+     * The guarded statement matched no row: tells a missing beer from one that is short of stock.
+     */
+    private Mono<Void> refused(Integer beerId, int delta) {
+        return beerRepository.existsById(beerId)
+                             .flatMap(exists -> Mono.error(exists ? new InsufficientInventoryException(beerId, -delta) : new NotFoundException()));
+    }
+
+    /**
+     * Concurrent first adjustments share one load; a failed load, or a beer that does not exist, is not kept.
+     */
+    private Mono<StripedInventory> hot(Integer beerId) {
+        return Mono.defer(() -> {
+            CompletableFuture<StripedInventory> placeholder = new CompletableFuture<>();
+            CompletableFuture<StripedInventory> inventory = hotInventory.putIfAbsent(beerId, placeholder);
+
+            if (inventory == null) {
+                inventory = placeholder;
+                beerRepository.findQuantityOnHandById(beerId)
+                              .subscribe(quantityOnHand -> placeholder.complete(new StripedInventory(quantityOnHand, stripes)),
+                                         e -> loadFailed(beerId, placeholder, e),
+                                         () -> loadFailed(beerId, placeholder, new NotFoundException()));
+            }
+
+            return Mono.fromFuture(inventory);
+        });
+    }
+
+    private void loadFailed(Integer beerId, CompletableFuture<StripedInventory> inventory, Throwable e) {
+        if (inventory.completeExceptionally(e)) {
+            hotInventory.remove(beerId, inventory);
+        }
+    }
+
+    /**
+     * Writes the net change of every loaded hot beer since the last flush. Changes that fail to write are kept for
+     * the next flush; a beer that no longer exists is dropped.
+     */
+    Mono<Void> flush() {
+        Map<Integer, StripedInventory> loaded = new LinkedHashMap<>();
+        Map<Integer, Long> deltas = new LinkedHashMap<>();
+
+        hotInventory.forEach((beerId, inventory) -> {
+            if (inventory.isDone() && !inventory.isCompletedExceptionally()) {
+                long delta = inventory.join().drain();
+
+                if (delta != 0) {
+                    loaded.put(beerId, inventory.join());
+                    deltas.put(beerId, delta);
+                }
+            }
+        });
+
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<Integer> beerIds = new ArrayList<>(deltas.keySet());
+        Map<Integer, Long> written = new LinkedHashMap<>();
+
+        return beerRepository.addQuantitiesOnHand(deltas)
+                             .index()
+                             .doOnNext(rowsUpdated -> {
+                                 Integer beerId = beerIds.get(rowsUpdated.getT1().intValue());
+
+                                 if (rowsUpdated.getT2() == 0) {
+                                     hotInventory.remove(beerId);
+                                 } else {
+                                     written.put(beerId, deltas.get(beerId));
+                                 }
+                             })
+                             .then()
+                             .doOnSuccess(done -> stockChanged(written))
+                             .onErrorResume(e -> {
+                                 log.error("Flushing inventory of {} hot beers failed", deltas.size(), e);
+                                 deltas.forEach((beerId, delta) -> loaded.get(beerId).undrain(delta));
+                                 return Mono.empty();
+                             });
+    }
+
+    private void stockChanged(Map<Integer, Long> deltas) {
+        if (!deltas.isEmpty()) {
+            inventoryListeners.forEach(listener -> listener.stockChanged(deltas));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flushing) {
+            flushing = false;
+            flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+        }
+
+        if (writeBehind != null) {
+            writeBehind.shutdown(SHUTDOWN_FLUSH_TIMEOUT);
+        }
+    }
+
+    @Override
+    public void beerDeleted(Beer beer) {
+        forget(beer.getId());
+    }
+
+    @Override
+    public void beersDeleted(Collection<Integer> beerIds) {
+        beerIds.forEach(this::forget);
+    }
+
+    private void forget(Integer beerId) {
+        hotInventory.remove(beerId);
+
+        if (writeBehind != null) {
+            writeBehind.forget(beerId);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers stock increments per beer and writes their sums with one batch statement every flush interval, or as
+ * soon as the configured number of beers have changes waiting. Many small increments to the same beer become one
+ * row update.
+ *
+ * Only increments are buffered, and only while fewer than the configured maximum of beers are: a decrement needs
+ * the non-negative guard, and an increment to a beer that cannot be buffered is written straight away. Either way
+ * the beer's buffered sum is taken out of the buffer and written in the same guarded statement, so writes to a beer
+ * stay in order. A buffered increment to a beer that no longer exists is dropped when flushed.
+ */
+@Slf4j
+class InventoryWriteBehind {
+
+    // a cell being removed from the map; writers that see it start over with a new cell
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final BeerRepository beerRepository;
+    private final InventoryListener listener;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatchSize;
+    private final int maxBeers;
+    private final Map<Integer, AtomicLong> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger changedBeers = new AtomicInteger();
+    private final AtomicLong bufferedSinceFlush = new AtomicLong();
+    private final AtomicInteger flushRequests = new AtomicInteger();
+    private volatile boolean flushing = true;
+
+    private final Counter buffered;
+    private final Counter writtenThrough;
+    private final Counter dropped;
+    private final DistributionSummary coalescing;
+    private final Timer flushSuccess;
+    private final Timer flushError;
+
+    InventoryWriteBehind(BeerRepository beerRepository, InventoryProperties.WriteBehind properties, InventoryListener listener,
+                         MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.listener = listener;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.maxBeers = properties.getMaxBeers();
+
+        this.buffered = Counter.builder("beer.inventory.write.behind.buffered")
+                               .description("Stock increments held back to be written with others")
+                               .register(meterRegistry);
+        this.writtenThrough = Counter.builder("beer.inventory.write.behind.written.through")
+                                     .description("Stock adjustments written immediately")
+                                     .register(meterRegistry);
+        this.dropped = Counter.builder("beer.inventory.write.behind.dropped")
+                              .description("Buffered sums whose beer no longer existed when flushed")
+                              .register(meterRegistry);
+        this.coalescing = DistributionSummary.builder("beer.inventory.write.behind.coalescing")
+                                             .description("Buffered increments per row written, per flush")
+                                             .publishPercentileHistogram()
+                                             .register(meterRegistry);
+        this.flushSuccess = flushTimer("success", meterRegistry);
+        this.flushError = flushTimer("error", meterRegistry);
+        Gauge.builder("beer.inventory.write.behind.beers", pending, Map::size)
+             .description("Beers with a buffer cell, including cells emptied by the last flush")
+             .register(meterRegistry);
+
+        Flux.interval(properties.getFlushInterval())
+            .takeWhile(tick -> flushing)
+            .subscribe(tick -> requestFlush());
+    }
+
+    private static Timer flushTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("beer.inventory.write.behind.flush")
+                    .description("Batch writes of buffered stock increments")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+    }
+
+    /**
+     * Emits the number of rows updated, as {@link BeerRepository#adjustQuantityOnHand} does; a buffered increment
+     * counts as one. A durable adjustment is always written before this completes.
+     *
+     * An increment is buffered only for a beer known to exist, so a missing beer is refused here as it is by the
+     * guarded statement. A beer's buffer cell vouches for it until the beer is {@linkplain #forget forgotten}; the
+     * first increment after the cell is removed checks again.
+     */
+    Mono<Integer> adjust(Integer beerId, int delta, boolean durable) {
+        return Mono.defer(() -> {
+            if (delta <= 0 || durable) {
+                return writeThrough(beerId, delta);
+            }
+
+            if (pending.containsKey(beerId)) {
+                return bufferOrWrite(beerId, delta);
+            }
+
+            return beerRepository.existsById(beerId)
+                                 .flatMap(exists -> exists ? bufferOrWrite(beerId, delta) : Mono.just(0));
+        });
+    }
+
+    private Mono<Integer> bufferOrWrite(Integer beerId, int delta) {
+        if (buffer(beerId, delta, true)) {
+            buffered.increment();
+            return Mono.just(1);
+        }
+
+        return writeThrough(beerId, delta);
+    }
+
+    /**
+     * A buffered sum too large to write in one statement together with {@code delta} is put back and the adjustment
+     * fails; the sum is written by the next flush.
+     */
+    private Mono<Integer> writeThrough(Integer beerId, int delta) {
+        long bufferedDelta = take(beerId);
+        int total;
+
+        try {
+            total = Math.toIntExact(bufferedDelta + delta);
+        } catch (ArithmeticException e) {
+            restore(beerId, bufferedDelta);
+            return Mono.error(e);
+        }
+
+        writtenThrough.increment();
+
+        return beerRepository.adjustQuantityOnHand(beerId, total)
+                             .doOnNext(rowsUpdated -> {
+                                 if (rowsUpdated == 0) {
+                                     restore(beerId, bufferedDelta);
+                                 } else {
+                                     listener.stockChanged(Map.of(beerId, (long) total));
+                                 }
+                             })
+                             .doOnError(e -> restore(beerId, bufferedDelta));
+    }
+
+    /**
+     * Drops whatever is buffered for a deleted beer, along with its cell.
+     */
+    void forget(Integer beerId) {
+        AtomicLong cell = pending.remove(beerId);
+
+        if (cell != null) {
+            cell.set(RETIRED);
+        }
+    }
+
+    /**
+     * Lock free once the beer has a cell: concurrent increments race on its compare-and-set only.
+     */
+    private boolean buffer(Integer beerId, long delta, boolean bounded) {
+        while (true) {
+            AtomicLong cell = pending.get(beerId);
+
+            if (cell == null) {
+                if (bounded && pending.size() >= maxBeers) {
+                    return false;
+                }
+                cell = pending.computeIfAbsent(beerId, id -> new AtomicLong());
+            }
+
+            long value = cell.get();
+
+            while (value != RETIRED) {
+                if (cell.compareAndSet(value, value + delta)) {
+                    bufferedSinceFlush.incrementAndGet();
+
+                    if (value == 0 && changedBeers.incrementAndGet() >= maxBatchSize) {
+                        requestFlush();
+                    }
+                    return true;
+                }
+                value = cell.get();
+            }
+
+            pending.remove(beerId, cell);
+        }
+    }
+
+    private long take(Integer beerId) {
+        AtomicLong cell = pending.get(beerId);
+
+        if (cell == null) {
+            return 0;
+        }
+
+        long value = cell.get();
+
+        while (value != RETIRED && value != 0 && !cell.compareAndSet(value, 0)) {
+            value = cell.get();
+        }
+
+        return value == RETIRED ? 0 : value;
+    }
+
+    private void restore(Integer beerId, long delta) {
+        if (delta != 0) {
+            buffer(beerId, delta, false);
+        }
+    }
+
+    /**
+     * Flushes run one at a time; requests that arrive during a flush are served by one more flush after it.
+     */
+    private void requestFlush() {
+        if (flushRequests.getAndIncrement() == 0) {
+            flush().subscribe(null, null, () -> {
+                if (flushRequests.getAndSet(0) > 1) {
+                    requestFlush();
+                }
+            });
+        }
+    }
+
+    /**
+     * Takes every buffered sum and writes them in one statement. Sums that fail to write go back into the buffer.
+     * Cells that were already empty are removed, so a beer occupies the buffer for at most one idle interval.
+     */
+    Mono<Void> flush() {
+        Map<Integer, Long> deltas = new LinkedHashMap<>();
+        long coalesced = bufferedSinceFlush.getAndSet(0);
+        changedBeers.set(0);
+
+        pending.forEach((beerId, cell) -> {
+            long value = cell.get();
+
+            while (value != RETIRED) {
+                if (value == 0 ? cell.compareAndSet(0, RETIRED) : cell.compareAndSet(value, 0)) {
+                    break;
+                }
+                value = cell.get();
+            }
+
+            if (value == 0) {
+                pending.remove(beerId, cell);
+            } else if (value != RETIRED) {
+                deltas.put(beerId, value);
+            }
+        });
+
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        coalescing.record((double) coalesced / deltas.size());
+        List<Integer> beerIds = new ArrayList<>(deltas.keySet());
+        Map<Integer, Long> written = new LinkedHashMap<>();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        return beerRepository.addQuantitiesOnHand(deltas)
+                             .index()
+                             .doOnNext(rowsUpdated -> {
+                                 Integer beerId = beerIds.get(rowsUpdated.getT1().intValue());
+
+                                 if (rowsUpdated.getT2() == 0) {
+                                     log.debug("Dropping buffered inventory of missing Beer Id {}", beerId);
+                                     dropped.increment();
+                                 } else {
+                                     written.put(beerId, deltas.get(beerId));
+                                 }
+                             })
+                             .then()
+                             .doOnSuccess(done -> {
+                                 sample.stop(flushSuccess);
+                                 listener.stockChanged(written);
+                             })
+                             .onErrorResume(e -> {
+                                 sample.stop(flushError);
+                                 log.error("Flushing buffered inventory of {} beers failed", deltas.size(), e);
+                                 deltas.forEach(this::restore);
+                                 return Mono.empty();
+                             });
+    }
+
+    void shutdown(Duration timeout) {
+        flushing = false;
+        flush().block(timeout);
+    }
+}
@@ -0,0 +1,111 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock of one beer held in memory across a fixed number of stripes, so concurrent adjustments from different
+ * threads mostly touch different cache lines. Each stripe owns part of the stock: a decrement takes from the calling
+ * thread's stripe and only falls back to gathering from all stripes, under a lock, when that stripe is short. The
+ * total therefore never goes below zero.
+ *
+ * The net change since the last {@link #drain()} is tracked per stripe as well, and drained exactly.
+ */
+class StripedInventory {
+
+    // stock and pending delta of a stripe share one 64 byte line, stripes never do
+    private static final int STRIDE = 8;
+    private static final int PENDING = 1;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+
+    StripedInventory(long quantityOnHand, int stripes) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * STRIDE);
+        cells.set(0, quantityOnHand);
+    }
+
+    void increment(int quantity) {
+        int stripe = stripe();
+
+        cells.addAndGet(stripe, quantity);
+        cells.addAndGet(stripe + PENDING, quantity);
+    }
+
+    /**
+     * Returns false, leaving the stock unchanged, if fewer than {@code quantity} are on hand.
+     */
+    boolean decrement(int quantity) {
+        int stripe = stripe();
+
+        if (!take(stripe, quantity) && !gather(stripe, quantity)) {
+            return false;
+        }
+
+        cells.addAndGet(stripe + PENDING, -quantity);
+        return true;
+    }
+
+    long quantityOnHand() {
+        long total = 0;
+
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * STRIDE);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the net change since the previous drain and resets it.
+     */
+    long drain() {
+        long delta = 0;
+
+        for (int i = 0; i < stripes; i++) {
+            delta += cells.getAndSet(i * STRIDE + PENDING, 0);
+        }
+        return delta;
+    }
+
+    /**
+     * Puts back a drained change that could not be written.
+     */
+    void undrain(long delta) {
+        cells.addAndGet(PENDING, delta);
+    }
+
+    private boolean take(int stripe, int quantity) {
+        long stock;
+
+        do {
+            stock = cells.get(stripe);
+
+            if (stock < quantity) {
+                return false;
+            }
+        } while (!cells.compareAndSet(stripe, stock, stock - quantity));
+
+        return true;
+    }
+
+    /**
+     * Empties every stripe into the caller's and takes from the total. Lock free decrements on other stripes see
+     * an empty stripe meanwhile and queue up here, so nothing is taken twice.
+     */
+    private synchronized boolean gather(int stripe, int quantity) {
+        long total = 0;
+
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * STRIDE, 0);
+        }
+
+        boolean taken = total >= quantity;
+        cells.addAndGet(stripe, taken ? total - quantity : total);
+
+        return taken;
+    }
+
+    private int stripe() {
+        return (int) (Thread.currentThread().getId() % stripes) * STRIDE;
+    }
+}
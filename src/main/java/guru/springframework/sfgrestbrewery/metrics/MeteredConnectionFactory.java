@@ -0,0 +1,54 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+
+/**
+ * Hands out connections that report statement executions to a listener. Unwraps to, and disposes, the original
+ * factory so that pool metrics and the pool's shutdown keep working.
+ */
+public class MeteredConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+    private final ConnectionFactory target;
+    private final ConnectionFactory proxy;
+
+    public MeteredConnectionFactory(ConnectionFactory target, ProxyExecutionListener listener) {
+        this.target = target;
+        this.proxy = ProxyConnectionFactory.builder(target)
+                                           .listener(listener)
+                                           .build();
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return proxy.create();
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return target.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return target;
+    }
+
+    @Override
+    public void dispose() {
+        if (target instanceof Disposable) {
+            ((Disposable) target).dispose();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return target instanceof Disposable && ((Disposable) target).isDisposed();
+    }
+}
@@ -0,0 +1,30 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class R2dbcMetricsConfiguration {
+
+    /**
+     * Wraps the application's connection factory so that every statement is timed. Static, and resolving the
+     * registry lazily, so that post processing does not force early initialization of the metrics infrastructure.
+     */
+    @Bean
+    static BeanPostProcessor meteredConnectionFactoryPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionFactory && !(bean instanceof MeteredConnectionFactory)) {
+                    return new MeteredConnectionFactory((ConnectionFactory) bean, new R2dbcQueryMetrics(meterRegistry::getObject));
+                }
+
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Times every statement executed through a {@link MeteredConnectionFactory} as {@code r2dbc.query}, tagged by
+ * statement type (select, insert, update, delete) and outcome. The SQL itself is not a tag to keep cardinality low.
+ */
+public class R2dbcQueryMetrics implements ProxyExecutionListener {
+
+    public static final String R2DBC_QUERY = "r2dbc.query";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public R2dbcQueryMetrics(Supplier<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execution) {
+        timer(type(execution), execution.isSuccess() ? "success" : "error").record(execution.getExecuteDuration());
+    }
+
+    private Timer timer(String type, String outcome) {
+        return timers.computeIfAbsent(type + ":" + outcome, key -> Timer.builder(R2DBC_QUERY)
+                                                                        .description("Execution time of R2DBC statements")
+                                                                        .tag("type", type)
+                                                                        .tag("outcome", outcome)
+                                                                        .publishPercentileHistogram()
+                                                                        .register(meterRegistry.get()));
+    }
+
+    private static String type(QueryExecutionInfo execution) {
+        if (execution.getQueries()
+                     .isEmpty()) {
+            return "other";
+        }
+
+        QueryInfo query = execution.getQueries()
+                                   .get(0);
+        String sql = query.getQuery()
+                          .trim();
+        int end = sql.indexOf(' ');
+        String keyword = (end < 0 ? sql : sql.substring(0, end)).toLowerCase(Locale.ROOT);
+
+        switch (keyword) {
+            case "select":
+            case "insert":
+            case "update":
+            case "delete":
+                return keyword;
+            default:
+                return "other";
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based operations on the beer table that Spring Data cannot derive.
+ */
+public interface BeerBulkRepository {
+
+    /**
+     * Inserts all beers with one parameterized batch statement and emits them, in order, with generated ids set.
+     */
+    Flux<Beer> insertAll(List<Beer> beers);
+
+    /**
+     * Writes the editable columns of {@code beer} (name, style, UPC, price) to its row and bumps the version, in one
+     * statement that only matches while the row is at {@code expectedVersion}. Emits the number of rows updated: 0
+     * if the row is gone or has moved on. A row without a version counts as version 0.
+     */
+    Mono<Integer> updateIfVersion(Beer beer, long expectedVersion);
+
+    /**
+     * Adds each delta to the stock on hand of its beer, unguarded, with one parameterized batch statement. Emits the
+     * number of rows updated per beer, in the map's iteration order: 0 for a beer that no longer exists.
+     */
+    Flux<Integer> addQuantitiesOnHand(Map<Integer, Long> deltas);
+}
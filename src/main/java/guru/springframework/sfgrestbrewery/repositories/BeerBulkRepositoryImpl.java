@@ -0,0 +1,117 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class BeerBulkRepositoryImpl implements BeerBulkRepository {
+
+    private static final String INSERT_BEER = "INSERT INTO beer (beer_name, beer_style, upc, version, quantity_on_hand, price, "
+            + "created_date, last_modified_date) VALUES ($1, $2, $3, $4, $5, $6, $7, $8)";
+
+    private static final String UPDATE_BEER = "UPDATE beer SET beer_name = :beerName, beer_style = :beerStyle, upc = :upc, "
+            + "price = :price, version = COALESCE(version, 0) + 1 WHERE id = :id AND COALESCE(version, 0) = :version";
+
+    private static final String ADD_QUANTITY_ON_HAND = "UPDATE beer SET quantity_on_hand = COALESCE(quantity_on_hand, 0) + $1 "
+            + "WHERE id = $2";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Beer> insertAll(List<Beer> beers) {
+        if (beers.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT_BEER)
+                                            .returnGeneratedValues("id");
+
+            for (int i = 0; i < beers.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                bind(statement, beers.get(i));
+            }
+
+            // one result per binding, in binding order
+            return Flux.from(statement.execute())
+                       .concatMap(result -> result.map((row, metadata) -> row.get("id", Integer.class)));
+        }).index()
+          .map(indexedId -> beers.get(indexedId.getT1().intValue())
+                                 .toBuilder()
+                                 .id(indexedId.getT2())
+                                 .build());
+    }
+
+    @Override
+    public Mono<Integer> updateIfVersion(Beer beer, long expectedVersion) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(UPDATE_BEER)
+                                                               .bind("id", beer.getId())
+                                                               .bind("version", expectedVersion);
+        spec = bind(spec, "beerName", beer.getBeerName(), String.class);
+        spec = bind(spec, "beerStyle", beer.getBeerStyle() == null ? null : beer.getBeerStyle().name(), String.class);
+        spec = bind(spec, "upc", beer.getUpc(), String.class);
+        spec = bind(spec, "price", beer.getPrice(), BigDecimal.class);
+
+        return spec.fetch()
+                   .rowsUpdated();
+    }
+
+    @Override
+    public Flux<Integer> addQuantitiesOnHand(Map<Integer, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(ADD_QUANTITY_ON_HAND);
+            boolean first = true;
+
+            for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+                if (!first) {
+                    statement.add();
+                }
+                first = false;
+                statement.bind(0, delta.getValue())
+                         .bind(1, delta.getKey());
+            }
+
+            // one result per binding, in binding order
+            return Flux.from(statement.execute())
+                       .concatMap(result -> Mono.from(result.getRowsUpdated()));
+        });
+    }
+
+    private DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    private void bind(Statement statement, Beer beer) {
+        bind(statement, 0, beer.getBeerName(), String.class);
+        bind(statement, 1, beer.getBeerStyle() == null ? null : beer.getBeerStyle().name(), String.class);
+        bind(statement, 2, beer.getUpc(), String.class);
+        bind(statement, 3, beer.getVersion(), Long.class);
+        bind(statement, 4, beer.getQuantityOnHand(), Integer.class);
+        bind(statement, 5, beer.getPrice(), BigDecimal.class);
+        bind(statement, 6, beer.getCreatedDate(), LocalDateTime.class);
+        bind(statement, 7, beer.getLastModifiedDate(), LocalDateTime.class);
+    }
+
+    private void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Point lookups of single beers. Depending on {@link BeerLookupProperties} each lookup type either goes straight
+ * to {@link BeerRepository} or is merged with concurrent lookups into one IN query by a {@link MicroBatcher}.
+ */
+@Component
+@EnableConfigurationProperties(BeerLookupProperties.class)
+public class BeerLookup {
+
+    private final BeerRepository beerRepository;
+    private final MicroBatcher<Integer, Beer> byId;
+    private final MicroBatcher<String, Beer> byUpc;
+
+    public BeerLookup(BeerRepository beerRepository, BeerLookupProperties properties, MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+
+        BeerLookupProperties.Batching id = properties.getId();
+        this.byId = id.isBatchingEnabled()
+                ? new MicroBatcher<>("beerById", beerRepository::findAllById, Beer::getId, id.getWindow(), id.getMaxBatchSize(), meterRegistry)
+                : null;
+
+        BeerLookupProperties.Batching upc = properties.getUpc();
+        this.byUpc = upc.isBatchingEnabled()
+                ? new MicroBatcher<>("beerByUpc", beerRepository::findAllByUpcIn, Beer::getUpc, upc.getWindow(), upc.getMaxBatchSize(), meterRegistry)
+                : null;
+    }
+
+    public Mono<Beer> findById(Integer beerId) {
+        return byId != null ? byId.load(beerId) : beerRepository.findById(beerId);
+    }
+
+    public Mono<Beer> findByUpc(String upc) {
+        return byUpc != null ? byUpc.load(upc) : beerRepository.findByUpc(upc);
+    }
+}
@@ -0,0 +1,24 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Opt-in micro-batching of point lookups, configured separately for lookups by id and by UPC.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.lookup")
+public class BeerLookupProperties {
+
+    private Batching id = new Batching();
+    private Batching upc = new Batching();
+
+    @Data
+    public static class Batching {
+        private boolean batchingEnabled = false;
+        private Duration window = Duration.ofMillis(2);
+        private int maxBatchSize = 100;
+    }
+}
@@ -5,14 +5,43 @@ import guru.springframework.sfgrestbrewery.domain.Beer;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 
-public interface BeerRepository extends ReactiveCrudRepository<Beer, Integer> {
+
+public interface BeerRepository extends ReactiveCrudRepository<Beer, Integer>, BeerBulkRepository {
 
 
     Mono<Beer> findByUpc(String upc);
+
+    Flux<Beer> findAllByUpcIn(Collection<String> upcs);
+
+    /**
+     * Deletes the row and emits it as it was before the delete, in one statement. Empty if there was no such row.
+     */
+    @Query("SELECT * FROM OLD TABLE (DELETE FROM beer WHERE id = :id)")
+    Mono<Beer> deleteReturningById(Integer id);
+
+    @Modifying
+    @Query("DELETE FROM beer WHERE id IN (:ids)")
+    Mono<Integer> deleteAllByIdIn(Collection<Integer> ids);
+
+    /**
+     * Adds {@code delta} to the stock on hand in one statement, unless that would take it below zero. Emits the
+     * number of rows updated: 0 if the beer does not exist or has too little stock.
+     */
+    @Modifying
+    @Query("UPDATE beer SET quantity_on_hand = COALESCE(quantity_on_hand, 0) + :delta "
+            + "WHERE id = :id AND COALESCE(quantity_on_hand, 0) + :delta >= 0")
+    Mono<Integer> adjustQuantityOnHand(Integer id, int delta);
+
+    @Query("SELECT COALESCE(quantity_on_hand, 0) FROM beer WHERE id = :id")
+    Mono<Integer> findQuantityOnHandById(Integer id);
 //    Page<Beer> findAllByBeerName(String beerName, Pageable pageable);
 //
 //    Page<Beer> findAllByBeerStyle(BeerStyleEnum beerStyle, Pageable pageable);
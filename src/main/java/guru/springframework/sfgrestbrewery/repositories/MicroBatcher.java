@@ -0,0 +1,114 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects point lookups arriving within a short window (or until a maximum batch size is reached) and resolves
+ * them with one multi-key query, fanning the results back out to each caller. A key with no matching row
+ * completes empty.
+ *
+ * A dispatched batch runs to completion even if all of its callers cancel.
+ */
+@Slf4j
+public class MicroBatcher<K, V> {
+
+    private final Function<Collection<K>, Flux<V>> batchLoader;
+    private final Function<V, K> keyOf;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    private final Scheduler scheduler = Schedulers.parallel();
+
+    private final Object lock = new Object();
+    private Map<K, Sinks.One<V>> pending = new LinkedHashMap<>();
+
+    public MicroBatcher(String name, Function<Collection<K>, Flux<V>> batchLoader, Function<V, K> keyOf,
+                        Duration window, int maxBatchSize, MeterRegistry meterRegistry) {
+        this.batchLoader = batchLoader;
+        this.keyOf = keyOf;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("beer.lookup.batch.size")
+                                             .tag("lookup", name)
+                                             .description("Keys resolved per batched lookup query")
+                                             .publishPercentileHistogram()
+                                             .register(meterRegistry);
+    }
+
+    public Mono<V> load(K key) {
+        return Mono.defer(() -> {
+            Sinks.One<V> sink;
+            Map<K, Sinks.One<V>> fullBatch = null;
+            Map<K, Sinks.One<V>> newBatch = null;
+
+            synchronized (lock) {
+                sink = pending.get(key);
+
+                if (sink == null) {
+                    sink = Sinks.one();
+                    pending.put(key, sink);
+                    newBatch = pending.size() == 1 ? pending : null;
+                }
+
+                if (pending.size() >= maxBatchSize) {
+                    fullBatch = pending;
+                    pending = new LinkedHashMap<>();
+                }
+            }
+
+            if (fullBatch != null) {
+                dispatch(fullBatch);
+            } else if (newBatch != null) {
+                Map<K, Sinks.One<V>> batch = newBatch;
+                scheduler.schedule(() -> flush(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+
+            return sink.asMono();
+        });
+    }
+
+    /**
+     * Ends {@code batch}'s window. A batch that filled up has been dispatched already, and its timer must not cut
+     * short the window of the batch collecting now.
+     */
+    private void flush(Map<K, Sinks.One<V>> batch) {
+        synchronized (lock) {
+            if (pending != batch) {
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<K, Sinks.One<V>> batch) {
+        batchSizes.record(batch.size());
+
+        batchLoader.apply(batch.keySet())
+                   .subscribe(value -> {
+                       Sinks.One<V> sink = batch.get(keyOf.apply(value));
+
+                       if (sink != null) {
+                           sink.tryEmitValue(value);
+                       }
+                   }, error -> {
+                       log.debug("Batched lookup of {} keys failed", batch.size(), error);
+                       batch.values().forEach(sink -> sink.tryEmitError(error));
+                   }, () -> batch.values().forEach(Sinks.One::tryEmitEmpty));
+    }
+}
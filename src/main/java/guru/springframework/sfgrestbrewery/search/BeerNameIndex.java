@@ -0,0 +1,260 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over beer names for search as you type. Names and queries are compared case and accent
+ * insensitively, word by word: every word of the query must start a word of the name. "Pac-Man" and "N.Z.P" are
+ * also indexed as "pacman" and "nzp", so punctuation may be left out of a query.
+ *
+ * Built from the table once the application is ready and kept current by the service's change notifications.
+ * Searches never touch the database; writes to the index are serialized, reads are not.
+ */
+@Slf4j
+@Component
+public class BeerNameIndex implements BeerChangeListener {
+
+    private static final Duration REBUILD_TIMEOUT = Duration.ofSeconds(30);
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern APOSTROPHES = Pattern.compile("['’]");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    // best match first: whole name, name prefix, first word prefix, then shorter names
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::getRank)
+                                                               .thenComparingInt(match -> match.getBeer().getName().length())
+                                                               .thenComparing(match -> match.getBeer().getName())
+                                                               .thenComparing(match -> match.getBeer().getDto().getId());
+
+    private final R2dbcEntityTemplate template;
+    private final BeerMapper beerMapper;
+    private final Map<Integer, IndexedBeer> beers = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, Set<Integer>> words = new ConcurrentSkipListMap<>();
+
+    public BeerNameIndex(R2dbcEntityTemplate template, BeerMapper beerMapper, MeterRegistry meterRegistry) {
+        this.template = template;
+        this.beerMapper = beerMapper;
+
+        Gauge.builder("beer.search.index.size", beers, Map::size)
+             .description("Beers in the name index")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Writes racing the rebuild are applied to the index as usual, so at worst a beer deleted meanwhile is indexed
+     * from the rows read before its delete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            beers.clear();
+            words.clear();
+        }
+
+        Long indexed = template.select(Beer.class)
+                               .all()
+                               .doOnNext(this::add)
+                               .count()
+                               .block(REBUILD_TIMEOUT);
+
+        log.info("Indexed {} beer names", indexed);
+    }
+
+    /**
+     * Emits at most {@code limit} beers whose names match {@code query}, best match first. A query without any
+     * letters or digits matches nothing.
+     */
+    public List<BeerDto> search(String query, int limit) {
+        List<String> queryWords = words(query);
+
+        if (queryWords.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        Set<Integer> candidates = null;
+
+        for (String queryWord : queryWords) {
+            Set<Integer> matches = new HashSet<>();
+
+            words.subMap(queryWord, true, queryWord + Character.MAX_VALUE, true)
+                 .values()
+                 .forEach(matches::addAll);
+
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.retainAll(matches);
+            }
+
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        String normalizedQuery = String.join(" ", queryWords);
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+
+        for (Integer beerId : candidates) {
+            IndexedBeer beer = beers.get(beerId);
+
+            if (beer != null) {
+                best.add(new Match(beer, rank(beer, normalizedQuery, queryWords.get(0))));
+
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+
+        List<BeerDto> results = new ArrayList<>(ranked.size());
+        ranked.forEach(match -> results.add(match.getBeer().getDto()));
+
+        return results;
+    }
+
+    private static int rank(IndexedBeer beer, String normalizedQuery, String firstQueryWord) {
+        if (beer.getNormalizedName().equals(normalizedQuery)) {
+            return 0;
+        }
+
+        if (beer.getNormalizedName().startsWith(normalizedQuery)) {
+            return 1;
+        }
+
+        return beer.getNormalizedName().startsWith(firstQueryWord) ? 2 : 3;
+    }
+
+    @Override
+    public void beerCreated(Beer beer) {
+        add(beer);
+    }
+
+    @Override
+    public synchronized void beersCreated(List<Beer> beers) {
+        beers.forEach(this::add);
+    }
+
+    @Override
+    public void beerUpdated(Beer previous, Beer current) {
+        add(current);
+    }
+
+    @Override
+    public void beerDeleted(Beer beer) {
+        remove(beer.getId());
+    }
+
+    @Override
+    public void beersDeleted(Collection<Integer> beerIds) {
+        synchronized (this) {
+            beerIds.forEach(this::remove);
+        }
+    }
+
+    private synchronized void add(Beer beer) {
+        if (beer.getId() == null || beer.getBeerName() == null) {
+            return;
+        }
+
+        remove(beer.getId());
+
+        List<String> nameWords = words(beer.getBeerName());
+        IndexedBeer indexed = new IndexedBeer(beerMapper.beerToBeerDto(beer), beer.getBeerName(), String.join(" ", nameWords),
+                                              indexedWords(nameWords));
+
+        beers.put(beer.getId(), indexed);
+        indexed.getWords().forEach(word -> words.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet())
+                                                .add(beer.getId()));
+    }
+
+    private synchronized void remove(Integer beerId) {
+        IndexedBeer indexed = beers.remove(beerId);
+
+        if (indexed == null) {
+            return;
+        }
+
+        indexed.getWords().forEach(word -> {
+            Set<Integer> beerIds = words.get(word);
+
+            if (beerIds != null) {
+                beerIds.remove(beerId);
+
+                if (beerIds.isEmpty()) {
+                    words.remove(word, beerIds);
+                }
+            }
+        });
+    }
+
+    private static Set<String> indexedWords(List<String> nameWords) {
+        Set<String> indexedWords = new LinkedHashSet<>(nameWords);
+
+        if (nameWords.size() > 1) {
+            indexedWords.add(String.join("", nameWords));
+        }
+
+        return indexedWords;
+    }
+
+    /**
+     * Lower case words without accents; apostrophes are dropped rather than splitting a word.
+     */
+    static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+
+        String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                                   .replaceAll("");
+        normalized = APOSTROPHES.matcher(normalized.toLowerCase(Locale.ROOT))
+                                .replaceAll("");
+
+        List<String> words = new ArrayList<>();
+
+        for (String word : SEPARATORS.split(normalized)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+
+        return words;
+    }
+
+    @Value
+    private static class Match {
+
+        IndexedBeer beer;
+        int rank;
+    }
+}
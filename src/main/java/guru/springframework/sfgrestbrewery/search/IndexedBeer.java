@@ -0,0 +1,18 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * A beer as the name index holds it: the DTO searches answer with and the normalized words it is indexed under.
+ */
+@Value
+class IndexedBeer {
+
+    BeerDto dto;
+    String name;
+    String normalizedName;
+    Set<String> words;
+}
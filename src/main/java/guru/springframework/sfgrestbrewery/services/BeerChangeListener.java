@@ -0,0 +1,48 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Notified by {@link BeerServiceImpl} after a write to the beer table has completed, so state derived from the
+ * table (caches, counts) can be kept in step without re-reading it.
+ */
+public interface BeerChangeListener {
+
+    default void beerCreated(Beer beer) {
+    }
+
+    /**
+     * Rows inserted together by a bulk create. Listeners whose work per notification grows with their own state
+     * should handle the batch in one pass rather than once per beer.
+     */
+    default void beersCreated(List<Beer> beers) {
+        beers.forEach(this::beerCreated);
+    }
+
+    /**
+     * {@code previous} is the row as the update replaced it and {@code current} the row as it left it. Id, version,
+     * name, style, UPC, price and created date are always the row's. Stock and the last modified date are not
+     * versioned, so when the update was checked against the cached beer instead of the row both are null in both
+     * beers: a null {@code quantityOnHand} means the stock is unknown, not zero.
+     */
+    default void beerUpdated(Beer previous, Beer current) {
+    }
+
+    /**
+     * The deleted row as the delete removed it, stock included; a null {@code quantityOnHand} here is the column's
+     * own value and counts as none.
+     */
+    default void beerDeleted(Beer beer) {
+    }
+
+    /**
+     * Rows deleted by id without their state being read, so a listener cannot tell which derived state they were
+     * part of and must drop anything that may depend on them. Only bulk deletes notify this way; the ids are the
+     * requested ones, some of which may not have existed.
+     */
+    default void beersDeleted(Collection<Integer> beerIds) {
+    }
+}
@@ -0,0 +1,130 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * The queries behind {@code listBeers} and {@code streamBeers}. Every shape built here must be backed by an index
+ * in {@code db/changes}; {@code BeerQueryPlanIT} checks each of them against the database's query plan.
+ */
+final class BeerQueries {
+
+    static final Sort BY_ID = Sort.by("id");
+
+    // the sorts with an index (db/changes/002_beer_sort_indexes.sql), without and with a style filter
+    private static final Set<Sort.Order> SORTS = Set.of(Sort.Order.asc("beerName"), Sort.Order.asc("price"), Sort.Order.desc("price"),
+                                                        Sort.Order.desc("createdDate"), Sort.Order.desc("quantityOnHand"));
+    private static final Set<Sort.Order> STYLE_SORTS = Set.of(Sort.Order.asc("beerName"), Sort.Order.asc("price"), Sort.Order.desc("price"),
+                                                              Sort.Order.desc("createdDate"));
+
+    private BeerQueries() {
+    }
+
+    /**
+     * Offset page, in the order given by {@link #order}.
+     */
+    static Query page(BeerFilter filter, PageRequest pageRequest) {
+        PageRequest ordered = PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(), order(filter, pageRequest.getSort()));
+
+        return query(Criteria.from(filterCriteria(filter))).with(ordered);
+    }
+
+    /**
+     * The full ORDER BY for a listing, or a {@link ServerWebInputException} if the filter and sort combination is not
+     * backed by an index. Only the combinations the indexes were built for are accepted:
+     * <ul>
+     * <li>unsorted: id order; with a price range, price ascending; in-stock only, stock descending</li>
+     * <li>one of {@link #SORTS}, or {@link #STYLE_SORTS} with a style filter, never with a name filter</li>
+     * <li>a price range only with a price sort and in-stock only with a stock sort, not both</li>
+     * </ul>
+     * The style, when filtered on, leads the ORDER BY (it is constant, so the order is the same) and id breaks ties,
+     * so the order matches an index exactly.
+     */
+    static Sort order(BeerFilter filter, Sort requested) {
+        if (filter.hasPriceRange() && filter.isInStock()) {
+            throw new ServerWebInputException("A price range cannot be combined with inStock");
+        }
+
+        if (requested.isUnsorted()) {
+            if (filter.hasPriceRange()) {
+                requested = Sort.by(Sort.Order.asc("price"));
+            } else if (filter.isInStock()) {
+                requested = Sort.by(Sort.Order.desc("quantityOnHand"));
+            } else {
+                return BY_ID;
+            }
+        }
+
+        List<Sort.Order> orders = requested.toList();
+        Sort.Order order = orders.get(0);
+
+        if (orders.size() > 1 || StringUtils.hasLength(filter.getBeerName())
+                || !(filter.getBeerStyle() == null ? SORTS : STYLE_SORTS).contains(order)
+                || (filter.hasPriceRange() && !order.getProperty().equals("price"))
+                || (filter.isInStock() && !order.getProperty().equals("quantityOnHand"))) {
+            throw new ServerWebInputException("Unsupported sort " + requested + " for " + filter);
+        }
+
+        Sort byStyle = filter.getBeerStyle() == null ? Sort.unsorted() : Sort.by("beerStyle");
+
+        return byStyle.and(Sort.by(order))
+                      .and(Sort.by(order.getDirection(), "id"));
+    }
+
+    /**
+     * Keyset page, one row longer than {@code pageSize} so the caller can tell whether a next page exists.
+     */
+    static Query pageAfter(BeerFilter filter, Integer afterId, int pageSize) {
+        List<Criteria> criteria = filterCriteria(filter);
+        criteria.add(where("id").greaterThan(afterId));
+
+        return query(Criteria.from(criteria)).sort(BY_ID)
+                                             .limit(pageSize + 1);
+    }
+
+    static Query all(BeerFilter filter) {
+        return query(Criteria.from(filterCriteria(filter))).sort(BY_ID);
+    }
+
+    static Query count(BeerFilter filter) {
+        return query(Criteria.from(filterCriteria(filter)));
+    }
+
+    private static List<Criteria> filterCriteria(BeerFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+
+        if (StringUtils.hasLength(filter.getBeerName())) {
+            criteria.add(where("beerName").is(filter.getBeerName()));
+        }
+
+        if (filter.getBeerStyle() != null) {
+            criteria.add(where("beerStyle").is(filter.getBeerStyle()));
+        }
+
+        if (filter.getMinPrice() != null) {
+            criteria.add(where("price").greaterThanOrEquals(filter.getMinPrice()));
+        }
+
+        if (filter.getMaxPrice() != null) {
+            criteria.add(where("price").lessThanOrEquals(filter.getMaxPrice()));
+        }
+
+        if (filter.isInStock()) {
+            criteria.add(where("quantityOnHand").greaterThan(0));
+        }
+
+        return criteria;
+    }
+}
@@ -1,29 +1,72 @@
 package guru.springframework.sfgrestbrewery.services;
 
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.web.model.BeerCatalogStats;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Created by jt on 2019-04-20.
  */
 public interface BeerService {
-    Mono<BeerPagedList> listBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest, Boolean showInventoryOnHand);
+    /**
+     * Sorted by the page request's sort, which together with the filter must be one of the index-backed
+     * combinations; anything else fails with {@link org.springframework.web.server.ServerWebInputException}.
+     */
+    Mono<BeerPagedList> listBeers(BeerFilter filter, PageRequest pageRequest, Boolean showInventoryOnHand);
+
+    Mono<BeerPagedList> listBeersAfter(String beerName, BeerStyleEnum beerStyle, Integer afterId, int pageSize, Boolean showInventoryOnHand);
+
+    Flux<BeerDto> streamBeers(String beerName, BeerStyleEnum beerStyle, Boolean showInventoryOnHand);
+
+    /**
+     * Beers whose names start with the words of {@code query}, best match first, from the in-memory name index.
+     */
+    Mono<List<BeerDto>> searchBeers(String query, int limit);
+
+    /**
+     * Counts, stock and prices per style from the in-memory aggregate; stock totals may lag stock adjustments.
+     */
+    Mono<BeerCatalogStats> getStatistics();
 
     Mono<BeerDto> getById(Integer beerId, Boolean showInventoryOnHand);
 
+    Mono<Map<Integer, BeerDto>> getByIds(Collection<Integer> beerIds, Boolean showInventoryOnHand);
+
+    Mono<Map<String, BeerDto>> getByUpcs(Collection<String> upcs);
+
     Mono<BeerDto> saveNewBeer(BeerDto beerDto);
 
     Mono<BeerDto> saveNewBeerMono(Mono<BeerDto> beerDto);
 
-    Mono<BeerDto> updateBeer(Integer beerId, BeerDto beerDto);
+    Flux<BeerDto> saveNewBeers(List<BeerDto> beerDtos);
 
-    Mono<BeerDto> getByUpc(String upc);
+    default Mono<BeerDto> updateBeer(Integer beerId, BeerDto beerDto) {
+        return updateBeer(beerId, null, beerDto);
+    }
 
-    void deleteBeerById(Integer beerId);
+    /**
+     * Fails with {@link guru.springframework.sfgrestbrewery.web.controller.NotFoundException} if the beer does not
+     * exist, and with {@link org.springframework.dao.OptimisticLockingFailureException} if {@code expectedVersion}
+     * is given and the beer is at another version.
+     */
+    Mono<BeerDto> updateBeer(Integer beerId, Long expectedVersion, BeerDto beerDto);
+
+    Mono<BeerDto> getByUpc(String upc);
 
     Mono<Void> reactiveDeleteById(Integer beerId);
+
+    /**
+     * Deletes every listed beer that exists, in one statement, and emits how many were deleted.
+     */
+    Mono<Integer> deleteByIds(Collection<Integer> beerIds);
 }
@@ -1,28 +1,40 @@
 package guru.springframework.sfgrestbrewery.services;
 
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogGeneration;
+import guru.springframework.sfgrestbrewery.cache.BeerCountCache;
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.cache.BeerListCacheKey;
+import guru.springframework.sfgrestbrewery.cache.ReactiveCache;
+import guru.springframework.sfgrestbrewery.cache.RequestCoalescer;
 import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.repositories.BeerLookup;
 import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.search.BeerNameIndex;
+import guru.springframework.sfgrestbrewery.stats.BeerStatistics;
 import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
 import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerCatalogStats;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
-import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static org.springframework.data.relational.core.query.Criteria.where;
-import static org.springframework.data.relational.core.query.Query.empty;
-import static org.springframework.data.relational.core.query.Query.query;
-
 /**
  * Created by jt on 2019-04-20.
  */
@@ -30,105 +42,326 @@ import static org.springframework.data.relational.core.query.Query.query;
 @Service
 @RequiredArgsConstructor
 public class BeerServiceImpl implements BeerService {
+    private static final int UPDATE_RETRIES = 3;
+
     private final BeerRepository beerRepository;
+    private final BeerLookup beerLookup;
     private final BeerMapper beerMapper;
     private final R2dbcEntityTemplate template;
+    private final TransactionalOperator transactionalOperator;
+    private final ReactiveCache<Integer, BeerDto> beerCache;
+    private final ReactiveCache<String, BeerDto> beerUpcCache;
+    private final ReactiveCache<BeerListCacheKey, BeerPagedList> beerListCache;
+    private final BeerCountCache beerCountCache;
+    private final RequestCoalescer<Integer, Beer> beerByIdCoalescer;
+    private final RequestCoalescer<String, Beer> beerByUpcCoalescer;
+    private final BeerNameIndex beerNameIndex;
+    private final BeerStatistics beerStatistics;
+    private final List<BeerChangeListener> beerChangeListeners;
+    private final BeerCatalogGeneration catalogGeneration;
 
-    @Cacheable(cacheNames = "beerListCache", condition = "#showInventoryOnHand == false ")
+    /**
+     * Filter and sort combinations without an index fail with a
+     * {@link org.springframework.web.server.ServerWebInputException}; see {@link BeerQueries#order}.
+     */
     @Override
-    public Mono<BeerPagedList> listBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest, Boolean showInventoryOnHand) {
-
-        Query query = null;
-
-        if (!StringUtils.isEmpty(beerName) && !StringUtils.isEmpty(beerStyle)) {
-            query = query(where("beerName").is(beerName)
-                                           .and("beerStyle")
-                                           .is(beerStyle));
-        } else if (!StringUtils.isEmpty(beerName) && StringUtils.isEmpty(beerStyle)) {
-            query = query(where("beerName").is(beerName));
-        } else if (StringUtils.isEmpty(beerName) && !StringUtils.isEmpty(beerStyle)) {
-            query = query(where("beerStyle").is(beerStyle));
-        } else {
-            query = empty();
+    public Mono<BeerPagedList> listBeers(BeerFilter filter, PageRequest pageRequest, Boolean showInventoryOnHand) {
+        return Mono.defer(() -> {
+            BeerQueries.order(filter, pageRequest.getSort());
+
+            if (showInventoryOnHand || !filter.isCacheable(pageRequest.getSort())) {
+                return findBeers(filter, pageRequest);
+            }
+
+            BeerListCacheKey key = new BeerListCacheKey(filter, null, pageRequest.getPageNumber(), pageRequest.getPageSize(),
+                                                        pageRequest.getSort());
+
+            return beerListCache.get(key, k -> findBeers(filter, pageRequest));
+        });
+    }
+
+    @Override
+    public Mono<BeerPagedList> listBeersAfter(String beerName, BeerStyleEnum beerStyle, Integer afterId, int pageSize, Boolean showInventoryOnHand) {
+        BeerFilter filter = new BeerFilter(beerName, beerStyle);
+        // ids start at 1, so the first keyset page is "after 0"; this keeps it apart from offset page 0 in the cache
+        Integer after = afterId == null ? 0 : afterId;
+
+        if (showInventoryOnHand) {
+            return findBeersAfter(filter, after, pageSize);
         }
 
+        BeerListCacheKey key = new BeerListCacheKey(filter, after, 0, pageSize, BeerQueries.BY_ID);
+
+        return beerListCache.get(key, k -> findBeersAfter(filter, after, pageSize));
+    }
+
+    @Override
+    public Flux<BeerDto> streamBeers(String beerName, BeerStyleEnum beerStyle, Boolean showInventoryOnHand) {
+        Function<Beer, BeerDto> mapping = showInventoryOnHand ? beerMapper::beerToBeerDtoWithInventory : beerMapper::beerToBeerDto;
 
         return template.select(Beer.class)
-                       .matching(query.with(pageRequest))
+                       .matching(BeerQueries.all(new BeerFilter(beerName, beerStyle)))
                        .all()
-                       .map(beerMapper::beerToBeerDto)
-                       .collect(Collectors.toList())
-                       .map(beers -> {
-                           return new BeerPagedList(beers, PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()), beers.size());
-                       });
+                       .map(mapping);
+    }
+
+    /**
+     * The page and the total are fetched concurrently; the total usually comes from {@link BeerCountCache}.
+     */
+    private Mono<BeerPagedList> findBeers(BeerFilter filter, PageRequest pageRequest) {
+        Mono<List<BeerDto>> beers = template.select(Beer.class)
+                                            .matching(BeerQueries.page(filter, pageRequest))
+                                            .all()
+                                            .map(beerMapper::beerToBeerDto)
+                                            .collect(Collectors.toList());
+
+        return Mono.zip(beers, countBeers(filter))
+                   .map(pageAndTotal -> {
+                       return new BeerPagedList(pageAndTotal.getT1(), PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()),
+                                                pageAndTotal.getT2());
+                   });
+    }
+
+    /**
+     * Keyset pagination: seeks past the last seen id instead of skipping rows with OFFSET, so every page costs the
+     * same. One extra row is fetched to tell whether a next page exists.
+     */
+    private Mono<BeerPagedList> findBeersAfter(BeerFilter filter, Integer afterId, int pageSize) {
+        Mono<List<Beer>> beers = template.select(Beer.class)
+                                         .matching(BeerQueries.pageAfter(filter, afterId, pageSize))
+                                         .all()
+                                         .collect(Collectors.toList());
+
+        return Mono.zip(beers, countBeers(filter))
+                   .map(pageAndTotal -> {
+                       List<Beer> page = pageAndTotal.getT1();
+                       String nextCursor = null;
+
+                       if (page.size() > pageSize) {
+                           page = page.subList(0, pageSize);
+                           nextCursor = BeerCursor.encode(page.get(pageSize - 1).getId());
+                       }
+
+                       List<BeerDto> beerDtos = page.stream()
+                                                    .map(beerMapper::beerToBeerDto)
+                                                    .collect(Collectors.toList());
+
+                       return new BeerPagedList(beerDtos, PageRequest.of(0, pageSize), pageAndTotal.getT2(), nextCursor);
+                   });
+    }
+
+    private Mono<Long> countBeers(BeerFilter filter) {
+        Mono<Long> count = Mono.defer(() -> template.count(BeerQueries.count(filter), Beer.class));
+
+        return filter.isCacheable() ? beerCountCache.get(filter, () -> count) : count;
+    }
+
+    @Override
+    public Mono<List<BeerDto>> searchBeers(String query, int limit) {
+        return Mono.fromSupplier(() -> beerNameIndex.search(query, limit));
+    }
+
+    @Override
+    public Mono<BeerCatalogStats> getStatistics() {
+        return Mono.fromSupplier(beerStatistics::snapshot);
     }
 
-    @Cacheable(cacheNames = "beerCache", key = "#beerId", condition = "#showInventoryOnHand == false ")
     @Override
     public Mono<BeerDto> getById(Integer beerId, Boolean showInventoryOnHand) {
         if (showInventoryOnHand) {
-            return beerRepository.findById(beerId)
-                                 .map(beerMapper::beerToBeerDtoWithInventory);
+            return findById(beerId).map(beerMapper::beerToBeerDtoWithInventory);
         } else {
-            return beerRepository.findById(beerId)
-                                 .map(beerMapper::beerToBeerDto);
+            return beerCache.get(beerId, id -> findById(id).map(beerMapper::beerToBeerDto));
+        }
+    }
+
+    @Override
+    public Mono<Map<Integer, BeerDto>> getByIds(Collection<Integer> beerIds, Boolean showInventoryOnHand) {
+        if (showInventoryOnHand) {
+            return beerRepository.findAllById(beerIds)
+                                 .collectMap(Beer::getId, beerMapper::beerToBeerDtoWithInventory);
         }
+
+        return getAll(beerIds, beerCache, beerRepository::findAllById, BeerDto::getId);
+    }
+
+    @Override
+    public Mono<Map<String, BeerDto>> getByUpcs(Collection<String> upcs) {
+        return getAll(upcs, beerUpcCache, beerRepository::findAllByUpcIn, BeerDto::getUpc);
+    }
+
+    /**
+     * Serves what it can from the cache and fetches all misses with a single IN query, caching what it finds.
+     */
+    private <K> Mono<Map<K, BeerDto>> getAll(Collection<K> keys, ReactiveCache<K, BeerDto> cache,
+                                             Function<Collection<K>, Flux<Beer>> loader, Function<BeerDto, K> keyOf) {
+        return cache.getAll(keys, misses -> loader.apply(misses)
+                                                  .map(beerMapper::beerToBeerDto)
+                                                  .collectMap(keyOf));
     }
 
     @Override
     public Mono<BeerDto> saveNewBeer(BeerDto beerDto) {
-        return beerRepository.save(beerMapper.beerDtoToBeer(beerDto))
+        return beerRepository.save(beerMapper.beerDtoToNewBeer(beerDto))
+                             .doOnNext(this::fireCreated)
                              .map(beerMapper::beerToBeerDto);
     }
 
     @Override
     public Mono<BeerDto> saveNewBeerMono(Mono<BeerDto> beerDto) {
-        return beerDto.map(beerMapper::beerDtoToBeer)
+        return beerDto.map(beerMapper::beerDtoToNewBeer)
                       .flatMap(beerRepository::save)
+                      .doOnNext(this::fireCreated)
                       .map(beerMapper::beerToBeerDto);
     }
 
 
     @Override
-    public Mono<BeerDto> updateBeer(Integer beerId, BeerDto beerDto) {
+    public Flux<BeerDto> saveNewBeers(List<BeerDto> beerDtos) {
+        List<Beer> beers = beerDtos.stream()
+                                   .map(beerMapper::beerDtoToNewBeer)
+                                   .collect(Collectors.toList());
+
+        // listeners are notified only once the whole batch has committed
+        return beerRepository.insertAll(beers)
+                             .as(transactionalOperator::transactional)
+                             .collectList()
+                             .doOnNext(this::fireCreated)
+                             .flatMapIterable(savedBeers -> savedBeers)
+                             .map(beerMapper::beerToBeerDto);
+    }
+
+
+    /**
+     * With no expected version the caller has no precondition: a concurrent update that gets in first is retried
+     * against the new state instead of being reported as a conflict.
+     */
+    @Override
+    public Mono<BeerDto> updateBeer(Integer beerId, Long expectedVersion, BeerDto beerDto) {
+        Mono<Beer> updated = Mono.defer(() -> updateFromCache(beerId, expectedVersion, beerDto))
+                                 .switchIfEmpty(Mono.defer(() -> updateFromCurrent(beerId, expectedVersion, beerDto)));
+
+        if (expectedVersion == null) {
+            updated = updated.retryWhen(Retry.max(UPDATE_RETRIES)
+                                             .filter(OptimisticLockingFailureException.class::isInstance));
+        }
+
+        return updated.map(beerMapper::beerToBeerDto);
+    }
+
+    /**
+     * The update is the only round trip when the id cache holds the beer: it is pinned to the cached version, so if
+     * it matches a row the cached beer is the state it replaced, except for the stock and last modified date the
+     * cache does not hold (see {@link BeerChangeListener#beerUpdated}). Empty if the cache cannot be used or was
+     * stale.
+     */
+    private Mono<Beer> updateFromCache(Integer beerId, Long expectedVersion, BeerDto beerDto) {
+        BeerDto cached = beerCache.getIfPresent(beerId);
+
+        if (cached == null || (expectedVersion != null && expectedVersion != versionOf(cached.getVersion()))) {
+            return Mono.empty();
+        }
+
+        return update(beerMapper.beerDtoToBeer(cached), beerDto);
+    }
+
+    private Mono<Beer> updateFromCurrent(Integer beerId, Long expectedVersion, BeerDto beerDto) {
         return beerRepository.findById(beerId)
-                             .defaultIfEmpty(Beer.builder()
-                                                 .build())
-                             .map(beer -> {
-                                 beer.setBeerName(beerDto.getBeerName());
-                                 beer.setBeerStyle(BeerStyleEnum.valueOf(beerDto.getBeerStyle()));
-                                 beer.setPrice(beerDto.getPrice());
-                                 beer.setUpc(beerDto.getUpc());
-                                 return beer;
-                             })
-                             .flatMap(updatedBeer -> {
-                                 if (updatedBeer.getId() != null) {
-                                     return beerRepository.save(updatedBeer);
+                             .switchIfEmpty(Mono.error(NotFoundException::new))
+                             .flatMap(beer -> {
+                                 if (expectedVersion != null && expectedVersion != versionOf(beer.getVersion())) {
+                                     return Mono.error(versionConflict(beerId, expectedVersion));
                                  }
-                                 return Mono.just(updatedBeer);
-                             })
-                             .map(beerMapper::beerToBeerDto);
+
+                                 return update(beer, beerDto).switchIfEmpty(Mono.error(() -> versionConflict(beerId, versionOf(beer.getVersion()))));
+                             });
+    }
+
+    /**
+     * Emits the beer as updated, or nothing if the row is no longer at the version of {@code previous}.
+     */
+    private Mono<Beer> update(Beer previous, BeerDto beerDto) {
+        Beer updatedBeer = previous.toBuilder()
+                                   .version(versionOf(previous.getVersion()) + 1)
+                                   .beerName(beerDto.getBeerName())
+                                   .beerStyle(BeerStyleEnum.valueOf(beerDto.getBeerStyle()))
+                                   .price(beerDto.getPrice())
+                                   .upc(beerDto.getUpc())
+                                   .build();
+
+        return beerRepository.updateIfVersion(updatedBeer, versionOf(previous.getVersion()))
+                             .filter(rowsUpdated -> rowsUpdated > 0)
+                             .map(rowsUpdated -> updatedBeer)
+                             .doOnNext(savedBeer -> fireUpdated(previous, savedBeer));
+    }
+
+    private static long versionOf(Long version) {
+        return version == null ? 0 : version;
+    }
+
+    private static OptimisticLockingFailureException versionConflict(Integer beerId, long expectedVersion) {
+        return new OptimisticLockingFailureException("Beer " + beerId + " is no longer at version " + expectedVersion);
     }
 
-    @Cacheable(cacheNames = "beerUpcCache")
     @Override
     public Mono<BeerDto> getByUpc(String upc) {
-        return beerRepository.findByUpc(upc)
-                             .map(beerMapper::beerToBeerDto);
+        return beerUpcCache.get(upc, key -> beerByUpcCoalescer.execute(key, beerLookup::findByUpc)
+                                                              .map(beerMapper::beerToBeerDto));
     }
 
-    @Override
-    public void deleteBeerById(Integer beerId) {
-        beerRepository.deleteById(beerId)
-                      .subscribe();
+    private Mono<Beer> findById(Integer beerId) {
+        return beerByIdCoalescer.execute(beerId, beerLookup::findById);
     }
 
+    /**
+     * One statement that also returns the deleted row, so listeners learn exactly what was deleted.
+     */
     @Override
     public Mono<Void> reactiveDeleteById(Integer beerId) {
-        return beerRepository.findById(beerId)
-                             .switchIfEmpty(Mono.error(new NotFoundException()))
-                             .map(beer -> {
-                                 return beer.getId();
-                             }).flatMap(foundId -> beerRepository.deleteById(foundId));
+        return beerRepository.deleteReturningById(beerId)
+                             .doOnNext(this::fireDeleted)
+                             .switchIfEmpty(Mono.error(NotFoundException::new))
+                             .then();
+    }
+
+    @Override
+    public Mono<Integer> deleteByIds(Collection<Integer> beerIds) {
+        if (beerIds.isEmpty()) {
+            return Mono.just(0);
+        }
+
+        return beerRepository.deleteAllByIdIn(beerIds)
+                             .doOnNext(deleted -> {
+                                 if (deleted > 0) {
+                                     fireDeleted(beerIds);
+                                 }
+                             });
+    }
+
+    private void fireCreated(Beer beer) {
+        beerChangeListeners.forEach(listener -> listener.beerCreated(beer));
+        catalogGeneration.advance();
+    }
+
+    private void fireCreated(List<Beer> beers) {
+        if (!beers.isEmpty()) {
+            beerChangeListeners.forEach(listener -> listener.beersCreated(beers));
+            catalogGeneration.advance();
+        }
+    }
+
+    private void fireUpdated(Beer previous, Beer current) {
+        beerChangeListeners.forEach(listener -> listener.beerUpdated(previous, current));
+        catalogGeneration.advance();
+    }
+
+    private void fireDeleted(Beer beer) {
+        beerChangeListeners.forEach(listener -> listener.beerDeleted(beer));
+        catalogGeneration.advance();
+    }
+
+    private void fireDeleted(Collection<Integer> beerIds) {
+        beerChangeListeners.forEach(listener -> listener.beersDeleted(beerIds));
+        catalogGeneration.advance();
     }
 }
@@ -0,0 +1,199 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import guru.springframework.sfgrestbrewery.web.model.BeerCatalogStats;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ValidationException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Times every {@link BeerService} operation as {@code beer.service}, tagged by operation and outcome, from
+ * subscription to completion. Web layers get this bean; the uninstrumented {@link BeerServiceImpl} does the work.
+ */
+@Primary
+@Service
+@RequiredArgsConstructor
+public class MeteredBeerService implements BeerService {
+
+    public static final String BEER_SERVICE = "beer.service";
+
+    static final String FOUND = "found";
+    static final String NOT_FOUND = "not-found";
+    static final String SUCCESS = "success";
+    static final String VALIDATION_ERROR = "validation-error";
+    static final String CONFLICT = "conflict";
+    static final String ERROR = "error";
+    static final String CANCELLED = "cancelled";
+
+    private final BeerServiceImpl beerService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<BeerPagedList> listBeers(BeerFilter filter, PageRequest pageRequest, Boolean showInventoryOnHand) {
+        return timed("listBeers", beerService.listBeers(filter, pageRequest, showInventoryOnHand), page -> SUCCESS);
+    }
+
+    @Override
+    public Mono<BeerPagedList> listBeersAfter(String beerName, BeerStyleEnum beerStyle, Integer afterId, int pageSize, Boolean showInventoryOnHand) {
+        return timed("listBeersAfter", beerService.listBeersAfter(beerName, beerStyle, afterId, pageSize, showInventoryOnHand), page -> SUCCESS);
+    }
+
+    @Override
+    public Flux<BeerDto> streamBeers(String beerName, BeerStyleEnum beerStyle, Boolean showInventoryOnHand) {
+        return timed("streamBeers", beerService.streamBeers(beerName, beerStyle, showInventoryOnHand));
+    }
+
+    @Override
+    public Mono<List<BeerDto>> searchBeers(String query, int limit) {
+        return timed("searchBeers", beerService.searchBeers(query, limit), beers -> SUCCESS);
+    }
+
+    @Override
+    public Mono<BeerCatalogStats> getStatistics() {
+        return timed("getStatistics", beerService.getStatistics(), stats -> SUCCESS);
+    }
+
+    @Override
+    public Mono<BeerDto> getById(Integer beerId, Boolean showInventoryOnHand) {
+        return timed("getById", beerService.getById(beerId, showInventoryOnHand), beer -> FOUND);
+    }
+
+    @Override
+    public Mono<Map<Integer, BeerDto>> getByIds(Collection<Integer> beerIds, Boolean showInventoryOnHand) {
+        return timed("getByIds", beerService.getByIds(beerIds, showInventoryOnHand), beers -> SUCCESS);
+    }
+
+    @Override
+    public Mono<Map<String, BeerDto>> getByUpcs(Collection<String> upcs) {
+        return timed("getByUpcs", beerService.getByUpcs(upcs), beers -> SUCCESS);
+    }
+
+    @Override
+    public Mono<BeerDto> saveNewBeer(BeerDto beerDto) {
+        return timed("saveNewBeer", beerService.saveNewBeer(beerDto), beer -> SUCCESS);
+    }
+
+    @Override
+    public Mono<BeerDto> saveNewBeerMono(Mono<BeerDto> beerDto) {
+        return timed("saveNewBeer", beerService.saveNewBeerMono(beerDto), beer -> SUCCESS);
+    }
+
+    @Override
+    public Flux<BeerDto> saveNewBeers(List<BeerDto> beerDtos) {
+        return timed("saveNewBeers", beerService.saveNewBeers(beerDtos));
+    }
+
+    @Override
+    public Mono<BeerDto> updateBeer(Integer beerId, Long expectedVersion, BeerDto beerDto) {
+        return timed("updateBeer", beerService.updateBeer(beerId, expectedVersion, beerDto), beer -> SUCCESS);
+    }
+
+    @Override
+    public Mono<BeerDto> getByUpc(String upc) {
+        return timed("getByUpc", beerService.getByUpc(upc), beer -> FOUND);
+    }
+
+    @Override
+    public Mono<Void> reactiveDeleteById(Integer beerId) {
+        return timed("deleteBeerById", beerService.reactiveDeleteById(beerId), done -> SUCCESS, SUCCESS);
+    }
+
+    @Override
+    public Mono<Integer> deleteByIds(Collection<Integer> beerIds) {
+        return timed("deleteByIds", beerService.deleteByIds(beerIds), deleted -> SUCCESS);
+    }
+
+    private <T> Mono<T> timed(String operation, Mono<T> source, Function<T, String> outcomeOfValue) {
+        return timed(operation, source, outcomeOfValue, NOT_FOUND);
+    }
+
+    /**
+     * Recorded on the terminal signal rather than in {@code doFinally}: downstream operators may cancel while the
+     * completion is still propagating (a {@code defaultIfEmpty} that throws, say), which would otherwise win.
+     */
+    private <T> Mono<T> timed(String operation, Mono<T> source, Function<T, String> outcomeOfValue, String outcomeIfEmpty) {
+        return Mono.defer(() -> {
+            Recording recording = new Recording(operation);
+
+            return source.doOnSuccess(value -> recording.stop(value != null ? outcomeOfValue.apply(value) : outcomeIfEmpty))
+                         .doOnError(e -> recording.stop(outcomeOf(e)))
+                         .doOnCancel(() -> recording.stop(CANCELLED));
+        });
+    }
+
+    private <T> Flux<T> timed(String operation, Flux<T> source) {
+        return Flux.defer(() -> {
+            Recording recording = new Recording(operation);
+
+            return source.doOnComplete(() -> recording.stop(SUCCESS))
+                         .doOnError(e -> recording.stop(outcomeOf(e)))
+                         .doOnCancel(() -> recording.stop(CANCELLED));
+        });
+    }
+
+    static String outcomeOf(Throwable e) {
+        if (e instanceof NotFoundException) {
+            return NOT_FOUND;
+        }
+
+        if (e instanceof ServerWebInputException || e instanceof ValidationException || e instanceof IllegalArgumentException) {
+            return VALIDATION_ERROR;
+        }
+
+        if (e instanceof DataIntegrityViolationException || e instanceof OptimisticLockingFailureException) {
+            return CONFLICT;
+        }
+
+        return ERROR;
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return timers.computeIfAbsent(operation + ":" + outcome, key -> Timer.builder(BEER_SERVICE)
+                                                                             .description("Beer service operations")
+                                                                             .tag("operation", operation)
+                                                                             .tag("outcome", outcome)
+                                                                             .publishPercentileHistogram()
+                                                                             .register(meterRegistry));
+    }
+
+    /**
+     * One timing per subscription; only the first terminal signal is recorded.
+     */
+    private class Recording {
+
+        private final String operation;
+        private final Timer.Sample sample = Timer.start(meterRegistry);
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        Recording(String operation) {
+            this.operation = operation;
+        }
+
+        void stop(String outcome) {
+            if (stopped.compareAndSet(false, true)) {
+                sample.stop(timer(operation, outcome));
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package guru.springframework.sfgrestbrewery.stats;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.inventory.InventoryListener;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.model.BeerCatalogStats;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleStats;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Count, stock on hand and price aggregates per beer style, served in O(number of styles). Seeded with one query
+ * once the application is ready and from then on adjusted in place: writes notified by the beer service move counts
+ * and prices, and stock changes written by the inventory service move stock.
+ *
+ * Not every write carries the state it changed (a bulk delete has only ids, an update checked against the cache has
+ * no stock, a stock change has no style), so the style, price and stock of every beer are kept next to the
+ * aggregates. A notification racing another write to the same beer can still leave them slightly off; the
+ * reseed interval, off by default, corrects such drift by seeding again.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(BeerStatisticsProperties.class)
+public class BeerStatistics implements BeerChangeListener, InventoryListener {
+
+    private static final Duration SEED_TIMEOUT = Duration.ofSeconds(30);
+    private static final String SELECT_BEERS = "SELECT id, beer_style, price, "
+            + "COALESCE(quantity_on_hand, 0) AS quantity_on_hand FROM beer";
+
+    private final DatabaseClient databaseClient;
+    private final BeerStatisticsProperties properties;
+
+    // guarded by this
+    private Catalog catalog = new Catalog();
+    private Disposable reseeding;
+
+    public BeerStatistics(DatabaseClient databaseClient, BeerStatisticsProperties properties) {
+        this.databaseClient = databaseClient;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        seed().block(SEED_TIMEOUT);
+
+        if (properties.getReseedInterval() != null) {
+            reseeding = Flux.interval(properties.getReseedInterval())
+                            .onBackpressureDrop()
+                            .concatMap(tick -> seed())
+                            .subscribe();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (reseeding != null) {
+            reseeding.dispose();
+        }
+    }
+
+    public synchronized BeerCatalogStats snapshot() {
+        List<BeerStyleStats> styles = new ArrayList<>(catalog.styles.size());
+        long count = 0;
+        long quantityOnHand = 0;
+
+        for (StyleAggregate aggregate : catalog.styles.values()) {
+            if (!aggregate.isEmpty()) {
+                styles.add(aggregate.toStats());
+                count += aggregate.getCount();
+                quantityOnHand += aggregate.getQuantityOnHand();
+            }
+        }
+
+        return BeerCatalogStats.builder()
+                               .count(count)
+                               .quantityOnHand(quantityOnHand)
+                               .styles(styles)
+                               .build();
+    }
+
+    /**
+     * Replaces the aggregates with ones built from the table. A failed seed keeps the current aggregates.
+     */
+    Mono<Void> seed() {
+        return databaseClient.sql(SELECT_BEERS)
+                             .map((row, metadata) -> Beer.builder()
+                                                         .id(row.get("id", Integer.class))
+                                                         .beerStyle(beerStyle(row.get("beer_style", String.class)))
+                                                         .price(row.get("price", BigDecimal.class))
+                                                         .quantityOnHand(row.get("quantity_on_hand", Integer.class))
+                                                         .build())
+                             .all()
+                             .collectList()
+                             .doOnNext(beers -> {
+                                 Catalog seeded = new Catalog();
+                                 beers.forEach(beer -> seeded.add(beer.getId(), beer.getBeerStyle(), beer.getPrice(), quantityOf(beer)));
+
+                                 synchronized (this) {
+                                     catalog = seeded;
+                                 }
+                             })
+                             .then()
+                             .onErrorResume(e -> {
+                                 log.error("Seeding beer statistics failed", e);
+                                 return Mono.empty();
+                             });
+    }
+
+    private static BeerStyleEnum beerStyle(String beerStyle) {
+        try {
+            return beerStyle == null ? null : BeerStyleEnum.valueOf(beerStyle);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void beerCreated(Beer beer) {
+        catalog.add(beer.getId(), beer.getBeerStyle(), beer.getPrice(), quantityOf(beer));
+    }
+
+    @Override
+    public synchronized void beersCreated(List<Beer> beers) {
+        beers.forEach(this::beerCreated);
+    }
+
+    /**
+     * Updates leave stock untouched, so the beer keeps the stock it is known to have whatever {@code previous} says.
+     */
+    @Override
+    public synchronized void beerUpdated(Beer previous, Beer current) {
+        TrackedBeer tracked = catalog.remove(current.getId());
+        long quantityOnHand = tracked != null ? tracked.quantityOnHand : quantityOf(previous);
+
+        catalog.add(current.getId(), current.getBeerStyle(), current.getPrice(), quantityOnHand);
+    }
+
+    @Override
+    public synchronized void beerDeleted(Beer beer) {
+        catalog.remove(beer.getId());
+    }
+
+    @Override
+    public synchronized void beersDeleted(Collection<Integer> beerIds) {
+        beerIds.forEach(catalog::remove);
+    }
+
+    @Override
+    public synchronized void stockChanged(Map<Integer, Long> deltas) {
+        deltas.forEach(catalog::addStock);
+    }
+
+    private static long quantityOf(Beer beer) {
+        return beer.getQuantityOnHand() == null ? 0 : beer.getQuantityOnHand();
+    }
+
+    /**
+     * The aggregates together with the beers they are made of. Not thread safe.
+     */
+    private static class Catalog {
+
+        private final Map<Integer, TrackedBeer> beers = new HashMap<>();
+        private final Map<BeerStyleEnum, StyleAggregate> styles = new EnumMap<>(BeerStyleEnum.class);
+
+        void add(Integer beerId, BeerStyleEnum beerStyle, BigDecimal price, long quantityOnHand) {
+            if (beerId == null) {
+                return;
+            }
+
+            remove(beerId);
+            beers.put(beerId, new TrackedBeer(beerStyle, price, quantityOnHand));
+            aggregate(beerStyle, price, 1, quantityOnHand);
+        }
+
+        /**
+         * Returns the removed beer, or null if it was not tracked.
+         */
+        TrackedBeer remove(Integer beerId) {
+            TrackedBeer beer = beerId == null ? null : beers.remove(beerId);
+
+            if (beer != null) {
+                aggregate(beer.beerStyle, beer.price, -1, -beer.quantityOnHand);
+            }
+            return beer;
+        }
+
+        void addStock(Integer beerId, long delta) {
+            TrackedBeer beer = beers.get(beerId);
+
+            if (beer != null) {
+                beer.quantityOnHand += delta;
+                aggregate(beer.beerStyle, null, 0, delta);
+            }
+        }
+
+        private void aggregate(BeerStyleEnum beerStyle, BigDecimal price, long count, long quantityOnHand) {
+            if (beerStyle != null) {
+                styles.computeIfAbsent(beerStyle, StyleAggregate::new)
+                      .add(price, count, quantityOnHand);
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class TrackedBeer {
+
+        private final BeerStyleEnum beerStyle;
+        private final BigDecimal price;
+        private long quantityOnHand;
+    }
+}
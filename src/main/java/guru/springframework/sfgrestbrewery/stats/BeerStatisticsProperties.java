@@ -0,0 +1,14 @@
+package guru.springframework.sfgrestbrewery.stats;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.stats")
+public class BeerStatisticsProperties {
+
+    // off unless set: seeds the aggregates again at this interval to correct drift from racing notifications
+    private Duration reseedInterval;
+}
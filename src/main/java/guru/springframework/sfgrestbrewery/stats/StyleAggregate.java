@@ -0,0 +1,66 @@
+package guru.springframework.sfgrestbrewery.stats;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleStats;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.TreeMap;
+
+/**
+ * Running aggregate over the beers of one style. Prices are kept as a multiset so the minimum and maximum stay
+ * exact when a beer at either end is removed. Not thread safe.
+ */
+class StyleAggregate {
+
+    private static final int AVERAGE_SCALE = 2;
+
+    private final BeerStyleEnum beerStyle;
+    private final TreeMap<BigDecimal, Long> prices = new TreeMap<>();
+    private long count;
+    private long quantityOnHand;
+    private long priced;
+    private BigDecimal priceSum = BigDecimal.ZERO;
+
+    StyleAggregate(BeerStyleEnum beerStyle) {
+        this.beerStyle = beerStyle;
+    }
+
+    /**
+     * Adds {@code beers} beers at {@code price} (which may be null) holding {@code quantityOnHand} in total; negative
+     * amounts remove them.
+     */
+    void add(BigDecimal price, long beers, long quantityOnHand) {
+        this.count += beers;
+        this.quantityOnHand += quantityOnHand;
+
+        if (price != null) {
+            priced += beers;
+            priceSum = priceSum.add(price.multiply(BigDecimal.valueOf(beers)));
+            prices.merge(price, beers, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    boolean isEmpty() {
+        return count <= 0;
+    }
+
+    BeerStyleStats toStats() {
+        return BeerStyleStats.builder()
+                             .beerStyle(beerStyle)
+                             .count(count)
+                             .quantityOnHand(quantityOnHand)
+                             .averagePrice(priced > 0 ? priceSum.divide(BigDecimal.valueOf(priced), AVERAGE_SCALE, RoundingMode.HALF_UP) : null)
+                             .minPrice(prices.isEmpty() ? null : prices.firstKey())
+                             .maxPrice(prices.isEmpty() ? null : prices.lastKey())
+                             .build();
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getQuantityOnHand() {
+        return quantityOnHand;
+    }
+}
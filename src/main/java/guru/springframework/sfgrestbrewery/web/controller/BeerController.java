@@ -1,23 +1,35 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogGeneration;
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.config.CodecConfiguration;
 import guru.springframework.sfgrestbrewery.services.BeerService;
+import guru.springframework.sfgrestbrewery.web.functional.BeerETags;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
 import javax.annotation.Resource;
+import java.math.BigDecimal;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by jt on 2019-04-20.
@@ -31,13 +43,20 @@ public class BeerController {
     private static final Integer DEFAULT_PAGE_SIZE = 25;
 
     private final BeerService beerService;
+    private final BeerCatalogGeneration catalogGeneration;
 
-    @GetMapping(produces = {"application/json"}, path = "beer")
-    public ResponseEntity<Mono<BeerPagedList>> listBeers(@RequestParam(value = "pageNumber", required = false) Integer pageNumber,
+    @GetMapping(produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE, CodecConfiguration.APPLICATION_SMILE_VALUE}, path = "beer")
+    public Mono<ResponseEntity<BeerPagedList>> listBeers(@RequestParam(value = "pageNumber", required = false) Integer pageNumber,
                                                          @RequestParam(value = "pageSize", required = false) Integer pageSize,
                                                          @RequestParam(value = "beerName", required = false) String beerName,
                                                          @RequestParam(value = "beerStyle", required = false) BeerStyleEnum beerStyle,
-                                                         @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand) {
+                                                         @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand,
+                                                         @RequestParam(value = "after", required = false) String after,
+                                                         @RequestParam(value = "sort", required = false) String sort,
+                                                         @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                                         @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+                                                         @RequestParam(value = "inStock", required = false) Boolean inStock,
+                                                         ServerWebExchange exchange) {
 
         if (showInventoryOnHand == null) {
             showInventoryOnHand = false;
@@ -50,24 +69,52 @@ public class BeerController {
         if (pageSize == null || pageSize < 1) {
             pageSize = DEFAULT_PAGE_SIZE;
         }
-        return ResponseEntity.ok(beerService.listBeers(beerName, beerStyle, PageRequest.of(pageNumber, pageSize), showInventoryOnHand));
-    }
 
-    @GetMapping("beer/{beerId}")
-    public ResponseEntity<Mono<BeerDto>> getBeerById(@PathVariable("beerId") Integer beerId,
-                                                     @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand) {
-        if (showInventoryOnHand == null) {
-            showInventoryOnHand = false;
+        BeerFilter filter = new BeerFilter(beerName, beerStyle, minPrice, maxPrice, Boolean.TRUE.equals(inStock));
+        Sort order = BeerSort.parse(sort);
+        Mono<BeerPagedList> beerPagedList;
+
+        if (after != null) {
+            // keyset pages are in id order only
+            if (sort != null || filter.isInStock() || filter.hasPriceRange()) {
+                throw new ServerWebInputException("after cannot be combined with sort, minPrice, maxPrice or inStock");
+            }
+
+            beerPagedList = beerService.listBeersAfter(beerName, beerStyle, BeerCursor.decode(after), pageSize, showInventoryOnHand);
+        } else {
+            beerPagedList = beerService.listBeers(filter, PageRequest.of(pageNumber, pageSize, order), showInventoryOnHand);
+        }
+
+        // stock is not part of the catalog generation, so listings that show it, filter on it or sort by it are not tagged
+        if (showInventoryOnHand || !filter.isCacheable(order)) {
+            return beerPagedList.map(ResponseEntity::ok);
         }
 
-        return ResponseEntity.ok(beerService.getById(beerId, showInventoryOnHand)
-                                            .defaultIfEmpty(BeerDto.builder()
-                                                                   .build())
-                                            .doOnNext(beerDto -> {
-                                                if(beerDto.getId() == null){
-                                                    throw new NotFoundException();
-                                                }
-                                            }));
+        return conditional(exchange, BeerETags.ofCatalog(catalogGeneration.current()), beerPagedList);
+    }
+
+    @GetMapping(produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE, CodecConfiguration.APPLICATION_SMILE_VALUE}, path = "beer/{beerId}")
+    public Mono<ResponseEntity<BeerDto>> getBeerById(@PathVariable("beerId") Integer beerId,
+                                                     @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand,
+                                                     ServerWebExchange exchange) {
+        boolean showInventory = Boolean.TRUE.equals(showInventoryOnHand);
+
+        return beerService.getById(beerId, showInventory)
+                          .defaultIfEmpty(BeerDto.builder()
+                                                 .build())
+                          .doOnNext(beerDto -> {
+                              if(beerDto.getId() == null){
+                                  throw new NotFoundException();
+                              }
+                          })
+                          .flatMap(beerDto -> {
+                              // stock changes do not move the version, so beers with their stock are not tagged
+                              if (showInventory) {
+                                  return Mono.just(ResponseEntity.ok(beerDto));
+                              }
+
+                              return conditional(exchange, BeerETags.of(beerDto.getVersion()), Mono.just(beerDto));
+                          });
     }
 
     @ExceptionHandler
@@ -75,55 +122,59 @@ public class BeerController {
         return ResponseEntity.notFound().build();
     }
 
-    @GetMapping("beerUpc/{upc}")
-    public ResponseEntity<Mono<BeerDto>> getBeerByUpc(@PathVariable("upc") String upc) {
-        return ResponseEntity.ok(beerService.getByUpc(upc));
+    @GetMapping(produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE, CodecConfiguration.APPLICATION_SMILE_VALUE}, path = "beerUpc/{upc}")
+    public Mono<ResponseEntity<BeerDto>> getBeerByUpc(@PathVariable("upc") String upc, ServerWebExchange exchange) {
+        return beerService.getByUpc(upc)
+                          .flatMap(beerDto -> conditional(exchange, BeerETags.of(beerDto.getId(), beerDto.getVersion()), Mono.just(beerDto)));
     }
 
     @PostMapping(path = "beer")
-    public ResponseEntity saveNewBeer(@RequestBody @Validated BeerDto beerDto) {
-
-        AtomicInteger atomicIntegerBeerId = new AtomicInteger();
-
-        beerService.saveNewBeer(beerDto)
-                   .subscribe(savedBeerDto -> {
-                       atomicIntegerBeerId.set(savedBeerDto.getId());
-                   });
-
-        return ResponseEntity
-                .created(UriComponentsBuilder
-                        .fromHttpUrl("http://api.springframework.guru/api/v1/beer/" + atomicIntegerBeerId.get())
-                        .build()
-                        .toUri())
-                .build();
+    public Mono<ResponseEntity<Void>> saveNewBeer(@RequestBody @Validated BeerDto beerDto) {
+        return beerService.saveNewBeer(beerDto)
+                          .map(savedBeerDto -> ResponseEntity.created(UriComponentsBuilder
+                                                                     .fromHttpUrl("http://api.springframework.guru/api/v1/beer/" + savedBeerDto.getId())
+                                                                     .build()
+                                                                     .toUri())
+                                                             .build());
     }
 
     @PutMapping("beer/{beerId}")
-    public ResponseEntity<Void> updateBeerById(@PathVariable("beerId") Integer beerId, @RequestBody @Validated BeerDto beerDto) {
-
-        AtomicBoolean atomicBoolean = new AtomicBoolean(false);
-
-        beerService.updateBeer(beerId, beerDto)
-                   .subscribe(saveDto -> {
-                       if (saveDto.getId() != null) {
-                           atomicBoolean.set(true);
-                       }
-                   });
-        if (atomicBoolean.get()) {
-            return ResponseEntity.noContent()
-                                 .build();
-        } else {
-            throw new NotFoundException();
-        }
+    public Mono<ResponseEntity<Void>> updateBeerById(@PathVariable("beerId") Integer beerId, @RequestBody @Validated BeerDto beerDto) {
+        return beerService.updateBeer(beerId, beerDto)
+                          .map(savedDto -> ResponseEntity.noContent()
+                                                         .build());
     }
 
     @DeleteMapping("beer/{beerId}")
-    public ResponseEntity<Void> deleteBeerById(@PathVariable("beerId") Integer beerId) {
+    public Mono<ResponseEntity<Void>> deleteBeerById(@PathVariable("beerId") Integer beerId) {
+        return beerService.reactiveDeleteById(beerId)
+                          .thenReturn(ResponseEntity.ok()
+                                                    .build());
+    }
+
+    /**
+     * A 304 if the request's {@code If-None-Match} names the tag, without subscribing to the body; otherwise the body
+     * with its tag.
+     */
+    private <T> Mono<ResponseEntity<T>> conditional(ServerWebExchange exchange, String eTag, Mono<T> body) {
+        if (exchange.checkNotModified(eTag)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                           .eTag(eTag)
+                                           .cacheControl(BeerETags.CACHE_CONTROL)
+                                           .varyBy(HttpHeaders.ACCEPT)
+                                           .build());
+        }
 
-        beerService.deleteBeerById(beerId);
+        return body.map(value -> ResponseEntity.ok()
+                                               .eTag(eTag)
+                                               .cacheControl(BeerETags.CACHE_CONTROL)
+                                               .varyBy(HttpHeaders.ACCEPT)
+                                               .body(value));
+    }
 
-        return ResponseEntity.ok()
-                             .build();
+    @ExceptionHandler({DataIntegrityViolationException.class, OptimisticLockingFailureException.class})
+    ResponseEntity<Void> handleConflict(DataAccessException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
     }
 
 }
@@ -0,0 +1,64 @@
+package guru.springframework.sfgrestbrewery.web.functional;
+
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogGeneration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.List;
+
+/**
+ * A beer's entity tag is its row version, as a strong tag: {@code "3"}. Tagged responses may be stored but must be
+ * revalidated, which an unchanged beer answers with a 304. They vary by {@code Accept}, since the same version may
+ * be sent as JSON, CBOR or Smile.
+ */
+public final class BeerETags {
+
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache();
+
+    private BeerETags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    /**
+     * For lookups by UPC, which a new beer can take over once the old one is deleted: {@code "12.3"}, the id and the
+     * version. It is not accepted as {@code If-Match}.
+     */
+    public static String of(Integer beerId, Long version) {
+        return "\"" + beerId + "." + (version == null ? 0 : version) + "\"";
+    }
+
+    /**
+     * For listings: the catalog generation they were read at, see {@link BeerCatalogGeneration}.
+     */
+    public static String ofCatalog(String generation) {
+        return "\"" + generation + "\"";
+    }
+
+    /**
+     * The version an {@code If-Match} header requires, or {@code null} if there is no header or it is {@code *}.
+     */
+    public static Long expectedVersion(List<String> ifMatch) {
+        if (ifMatch.isEmpty() || (ifMatch.size() == 1 && "*".equals(ifMatch.get(0).trim()))) {
+            return null;
+        }
+
+        if (ifMatch.size() > 1) {
+            throw new ServerWebInputException("If-Match must name a single version");
+        }
+
+        String tag = ifMatch.get(0).trim();
+
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new ServerWebInputException("Invalid If-Match: " + tag);
+        }
+
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid If-Match: " + tag);
+        }
+    }
+}
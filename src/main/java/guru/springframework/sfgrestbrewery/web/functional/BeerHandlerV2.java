@@ -1,11 +1,32 @@
 package guru.springframework.sfgrestbrewery.web.functional;
 
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogGeneration;
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.config.CodecConfiguration;
+import guru.springframework.sfgrestbrewery.inventory.InsufficientInventoryException;
+import guru.springframework.sfgrestbrewery.inventory.InventoryService;
 import guru.springframework.sfgrestbrewery.services.BeerService;
 import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import guru.springframework.sfgrestbrewery.web.model.BeerBulkDeleteResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerBulkResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerLookupResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerPage;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.InventoryAdjustment;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.relational.core.sql.In;
+import org.springframework.core.Conventions;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Errors;
@@ -13,13 +34,39 @@ import org.springframework.validation.Validator;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class BeerHandlerV2 {
+    private static final int DEFAULT_PAGE_NUMBER = 0;
+    private static final int DEFAULT_PAGE_SIZE = 25;
+    private static final int BULK_BATCH_SIZE = 500;
+    private static final int BULK_CONCURRENCY = 4;
+    private static final int MAX_BATCH_LOOKUP = 100;
+    private static final int MAX_BATCH_DELETE = 1000;
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    private static final String ENVELOPE_PAGE = "page";
+    private static final String ENVELOPE_LEAN = "lean";
+
     private final BeerService beerService;
+    private final InventoryService inventoryService;
+    private final BeerCatalogGeneration catalogGeneration;
     private final Validator validator;
 
     public Mono<ServerResponse> saveNewBeer(ServerRequest request) {
@@ -31,71 +78,495 @@ public class BeerHandlerV2 {
                               return ServerResponse.ok()
                                                    .header("location", BeerRouterConfiguration.BEER_V2_UPC + "/" + beerDto.getId())
                                                    .build();
-                          });
+                          })
+                          .onErrorResume(DataIntegrityViolationException.class, this::upcConflict);
+    }
+
+    /**
+     * Accepts a stream of beers (NDJSON or a JSON array) and answers with one {@link BeerBulkResult} per element,
+     * in request order. Valid elements are inserted in batches with a bounded number of batches in flight; an
+     * invalid element or a failed batch does not abort the rest of the upload.
+     *
+     * Besides bean validation an element is invalid if its style is unknown or its UPC repeats one earlier in the
+     * upload. A batch the database refuses, say for a UPC that is already taken, is retried one element at a time,
+     * so only the offending elements fail.
+     */
+    public Mono<ServerResponse> saveNewBeers(ServerRequest request) {
+        // batches are checked one at a time, in request order, as they are buffered
+        Set<String> upcs = new HashSet<>();
+        Flux<BeerBulkResult> results = request.bodyToFlux(BeerDto.class)
+                                              .index()
+                                              .buffer(BULK_BATCH_SIZE)
+                                              .flatMapSequential(batch -> saveBatch(batch, upcs), BULK_CONCURRENCY);
+
+        return ServerResponse.ok()
+                             .contentType(MediaType.APPLICATION_NDJSON)
+                             .body(results, BeerBulkResult.class);
     }
 
-    private void validate(BeerDto beerDto) {
-        Errors errors = new BeanPropertyBindingResult(beerDto, "beerDto");
-        validator.validate(beerDto, errors);
+    private Flux<BeerBulkResult> saveBatch(List<Tuple2<Long, BeerDto>> batch, Set<String> upcs) {
+        List<Tuple2<Long, BeerDto>> valid = new ArrayList<>(batch.size());
+        Map<Long, BeerBulkResult> invalid = new HashMap<>();
+
+        batch.forEach(indexedBeer -> {
+            List<String> errors = bulkErrors(indexedBeer.getT2(), upcs);
+
+            if (!errors.isEmpty()) {
+                invalid.put(indexedBeer.getT1(), BeerBulkResult.builder()
+                                                               .index(indexedBeer.getT1())
+                                                               .status(BeerBulkResult.Status.INVALID)
+                                                               .upc(indexedBeer.getT2().getUpc())
+                                                               .errors(errors)
+                                                               .build());
+            } else {
+                valid.add(indexedBeer);
+            }
+        });
+
+        List<BeerDto> beers = valid.stream()
+                                   .map(Tuple2::getT2)
+                                   .collect(Collectors.toList());
+
+        return Flux.defer(() -> beerService.saveNewBeers(beers))
+                   .collectList()
+                   .map(savedBeers -> {
+                       Map<Long, BeerBulkResult> results = new HashMap<>(invalid);
+
+                       for (int i = 0; i < savedBeers.size(); i++) {
+                           Long index = valid.get(i).getT1();
+                           results.put(index, created(index, savedBeers.get(i)));
+                       }
+                       return results;
+                   })
+                   .onErrorResume(e -> {
+                       log.warn("Bulk insert of {} beers failed, inserting them one at a time", beers.size(), e);
+
+                       return Flux.fromIterable(valid)
+                                  .concatMap(this::saveBulkElement)
+                                  .collectMap(BeerBulkResult::getIndex, result -> result, () -> new HashMap<>(invalid));
+                   })
+                   .flatMapIterable(results -> batch.stream()
+                                                    .map(indexedBeer -> results.get(indexedBeer.getT1()))
+                                                    .collect(Collectors.toList()));
+    }
+
+    /**
+     * Claims the element's UPC for the upload only if the element is otherwise valid, so a rejected element does
+     * not make a later one with the same UPC a duplicate.
+     */
+    private List<String> bulkErrors(BeerDto beerDto, Set<String> upcs) {
+        List<String> errors = validationErrors(beerDto).getFieldErrors()
+                                                       .stream()
+                                                       .map(error -> error.getField() + " : " + error.getDefaultMessage())
+                                                       .collect(Collectors.toList());
+
+        if (beerDto.getBeerStyle() != null && Arrays.stream(BeerStyleEnum.values())
+                                                    .noneMatch(style -> style.name().equals(beerDto.getBeerStyle()))) {
+            errors.add("beerStyle : unknown beer style");
+        }
+
+        if (errors.isEmpty() && beerDto.getUpc() != null && !upcs.add(beerDto.getUpc())) {
+            errors.add("upc : repeats an earlier element");
+        }
+
+        return errors;
+    }
+
+    private Mono<BeerBulkResult> saveBulkElement(Tuple2<Long, BeerDto> indexedBeer) {
+        return Mono.defer(() -> beerService.saveNewBeer(indexedBeer.getT2()))
+                   .map(savedBeer -> created(indexedBeer.getT1(), savedBeer))
+                   .onErrorResume(e -> {
+                       boolean conflict = e instanceof DataIntegrityViolationException;
+
+                       return Mono.just(BeerBulkResult.builder()
+                                                      .index(indexedBeer.getT1())
+                                                      .status(conflict ? BeerBulkResult.Status.INVALID : BeerBulkResult.Status.FAILED)
+                                                      .upc(indexedBeer.getT2().getUpc())
+                                                      .errors(List.of(conflict ? "upc : already in use" : String.valueOf(e.getMessage())))
+                                                      .build());
+                   });
+    }
+
+    private BeerBulkResult created(Long index, BeerDto savedBeer) {
+        return BeerBulkResult.builder()
+                             .index(index)
+                             .status(BeerBulkResult.Status.CREATED)
+                             .id(savedBeer.getId())
+                             .upc(savedBeer.getUpc())
+                             .build();
+    }
+
+    private void validate(Object target) {
+        Errors errors = validationErrors(target);
 
         if (errors.hasErrors()) {
             throw new ServerWebInputException(errors.toString());
         }
     }
 
+    private Errors validationErrors(Object target) {
+        Errors errors = new BeanPropertyBindingResult(target, Conventions.getVariableName(target));
+        validator.validate(target, errors);
+
+        return errors;
+    }
+
+    /**
+     * Pages through beers by page number, or by cursor when {@code after} is given. {@code envelope=lean} serves the
+     * page as a {@link BeerPage} rather than a {@link BeerPagedList}.
+     */
+    public Mono<ServerResponse> listBeers(ServerRequest request) {
+        int pageNumber = Math.max(intQueryParam(request, "pageNumber", DEFAULT_PAGE_NUMBER), DEFAULT_PAGE_NUMBER);
+        int requestedPageSize = intQueryParam(request, "pageSize", DEFAULT_PAGE_SIZE);
+        int pageSize = requestedPageSize < 1 ? DEFAULT_PAGE_SIZE : requestedPageSize;
+        String beerName = request.queryParam("beerName")
+                                 .orElse(null);
+        BeerStyleEnum beerStyle = request.queryParam("beerStyle")
+                                         .map(this::beerStyle)
+                                         .orElse(null);
+        Boolean showInventory = Boolean.valueOf(request.queryParam("showInventoryOnHand")
+                                                       .orElse("false"));
+        BeerFilter filter = new BeerFilter(beerName, beerStyle, decimalQueryParam(request, "minPrice"), decimalQueryParam(request, "maxPrice"),
+                                           Boolean.parseBoolean(request.queryParam("inStock")
+                                                                       .orElse("false")));
+        Sort sort = BeerSort.parse(request.queryParam("sort")
+                                          .orElse(null));
+        boolean lean = leanEnvelope(request);
+        // an empty "after" parameter starts a keyset listing, so check for the key rather than a value
+        boolean keyset = request.queryParams().containsKey("after");
+
+        Mono<BeerPagedList> beerPagedList;
+
+        if (keyset) {
+            // keyset pages are in id order only
+            if (sort.isSorted() || filter.isInStock() || filter.hasPriceRange()) {
+                throw new ServerWebInputException("after cannot be combined with sort, minPrice, maxPrice or inStock");
+            }
+
+            beerPagedList = beerService.listBeersAfter(beerName, beerStyle, BeerCursor.decode(request.queryParams().getFirst("after")),
+                                                       pageSize, showInventory);
+        } else {
+            beerPagedList = beerService.listBeers(filter, PageRequest.of(pageNumber, pageSize, sort), showInventory);
+        }
+
+        Mono<?> body = lean ? beerPagedList.map(page -> BeerPage.of(page, keyset)) : beerPagedList;
+
+        // stock is not part of the catalog generation, so listings that show it, filter on it or sort by it are not tagged
+        if (showInventory || !filter.isCacheable(sort)) {
+            return body.flatMap(page -> ServerResponse.ok()
+                                                      .contentType(responseType(request))
+                                                      .bodyValue(page));
+        }
+
+        return conditional(request, BeerETags.ofCatalog(catalogGeneration.current()), body);
+    }
+
+    private boolean leanEnvelope(ServerRequest request) {
+        String envelope = request.queryParam("envelope")
+                                 .orElse(ENVELOPE_PAGE);
+
+        if (!ENVELOPE_PAGE.equals(envelope) && !ENVELOPE_LEAN.equals(envelope)) {
+            throw new ServerWebInputException("Invalid envelope: " + envelope);
+        }
+
+        return ENVELOPE_LEAN.equals(envelope);
+    }
+
+    /**
+     * Streams every matching beer in id order with backpressure, so arbitrarily large catalogs can be pulled with
+     * constant server memory. Served as NDJSON unless the client asks for server-sent events.
+     */
+    public Mono<ServerResponse> streamBeers(ServerRequest request) {
+        String beerName = request.queryParam("beerName")
+                                 .orElse(null);
+        BeerStyleEnum beerStyle = request.queryParam("beerStyle")
+                                         .map(this::beerStyle)
+                                         .orElse(null);
+        Boolean showInventory = Boolean.valueOf(request.queryParam("showInventoryOnHand")
+                                                       .orElse("false"));
+        boolean eventStream = request.headers()
+                                     .accept()
+                                     .stream()
+                                     .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+
+        return ServerResponse.ok()
+                             .contentType(eventStream ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                             .body(beerService.streamBeers(beerName, beerStyle, showInventory), BeerDto.class);
+    }
+
+    /**
+     * Search as you type over beer names; {@code limit} is capped rather than rejected.
+     */
+    public Mono<ServerResponse> searchBeers(ServerRequest request) {
+        String query = request.queryParam("q")
+                              .filter(q -> !q.isBlank())
+                              .orElseThrow(() -> new ServerWebInputException("q required"));
+        int requestedLimit = intQueryParam(request, "limit", DEFAULT_SEARCH_LIMIT);
+        int limit = requestedLimit < 1 ? DEFAULT_SEARCH_LIMIT : Math.min(requestedLimit, MAX_SEARCH_LIMIT);
+
+        return beerService.searchBeers(query, limit)
+                          .flatMap(beers -> ServerResponse.ok()
+                                                          .contentType(responseType(request))
+                                                          .bodyValue(beers));
+    }
+
+    public Mono<ServerResponse> getStatistics(ServerRequest request) {
+        return beerService.getStatistics()
+                          .flatMap(stats -> ServerResponse.ok()
+                                                          .contentType(responseType(request))
+                                                          .bodyValue(stats));
+    }
+
+    private int intQueryParam(ServerRequest request, String name, int defaultValue) {
+        try {
+            return request.queryParam(name)
+                          .map(Integer::valueOf)
+                          .orElse(defaultValue);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid " + name);
+        }
+    }
+
+    /**
+     * Functional endpoints do not negotiate the body's media type from {@code Accept}, they take the first codec that
+     * can write it, so the preferred one of ours is set explicitly. JSON unless the request asks for another.
+     */
+    private MediaType responseType(ServerRequest request) {
+        List<MediaType> accepted = new ArrayList<>(request.headers()
+                                                          .accept());
+        MediaType.sortBySpecificityAndQuality(accepted);
+
+        return accepted.stream()
+                       .flatMap(accept -> CodecConfiguration.MEDIA_TYPES.stream()
+                                                                        .filter(accept::isCompatibleWith))
+                       .findFirst()
+                       .orElse(MediaType.APPLICATION_JSON);
+    }
+
+    private BigDecimal decimalQueryParam(ServerRequest request, String name) {
+        try {
+            return request.queryParam(name)
+                          .map(BigDecimal::new)
+                          .orElse(null);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid " + name);
+        }
+    }
+
+    private BeerStyleEnum beerStyle(String beerStyle) {
+        try {
+            return BeerStyleEnum.valueOf(beerStyle);
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException("Invalid beerStyle: " + beerStyle);
+        }
+    }
 
     public Mono<ServerResponse> getBeerById(ServerRequest request) {
         Integer beerId = Integer.valueOf(request.pathVariable("beerId"));
         Boolean showInventory = Boolean.valueOf(request.queryParam("showInventory")
                                                        .orElse("false"));
 
+        // stock changes do not move the version, so beers with their stock are not tagged
         return beerService.getById(beerId, showInventory)
                           .flatMap(beerDto -> {
-                              return ServerResponse.ok()
-                                                   .bodyValue(beerDto);
+                              if (showInventory) {
+                                  return ServerResponse.ok()
+                                                       .contentType(responseType(request))
+                                                       .bodyValue(beerDto);
+                              }
+
+                              return conditional(request, BeerETags.of(beerDto.getVersion()), Mono.just(beerDto));
                           })
                           .switchIfEmpty(ServerResponse.notFound()
                                                        .build());
     }
 
+    /**
+     * A 304 if the request's {@code If-None-Match} names the tag, without subscribing to the body; otherwise the body
+     * with its tag. Empty if the body is.
+     */
+    private Mono<ServerResponse> conditional(ServerRequest request, String eTag, Mono<?> body) {
+        return request.checkNotModified(eTag)
+                      .flatMap(notModified -> ServerResponse.from(notModified)
+                                                            .cacheControl(BeerETags.CACHE_CONTROL)
+                                                            .varyBy(HttpHeaders.ACCEPT)
+                                                            .build())
+                      .switchIfEmpty(Mono.defer(() -> body.flatMap(value -> ServerResponse.ok()
+                                                                                          .eTag(eTag)
+                                                                                          .cacheControl(BeerETags.CACHE_CONTROL)
+                                                                                          .varyBy(HttpHeaders.ACCEPT)
+                                                                                          .contentType(responseType(request))
+                                                                                          .bodyValue(value))));
+    }
+
+    /**
+     * Looks up many beers by id in one database round trip. Results follow the order of the {@code ids} parameter
+     * (repeated or comma separated) and mark ids that do not exist.
+     */
+    public Mono<ServerResponse> getBeersByIds(ServerRequest request) {
+        List<String> keys = batchKeys(request, "ids");
+        List<Integer> beerIds = new ArrayList<>(keys.size());
+        Boolean showInventory = Boolean.valueOf(request.queryParam("showInventory")
+                                                       .orElse("false"));
+
+        try {
+            keys.forEach(key -> beerIds.add(Integer.valueOf(key)));
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid ids");
+        }
+
+        return beerService.getByIds(beerIds, showInventory)
+                          .map(beers -> keys.stream()
+                                            .map(key -> lookupResult(key, beers.get(Integer.valueOf(key))))
+                                            .collect(Collectors.toList()))
+                          .flatMap(results -> ServerResponse.ok()
+                                                            .contentType(responseType(request))
+                                                            .bodyValue(results));
+    }
+
+    public Mono<ServerResponse> getBeersByUpcs(ServerRequest request) {
+        List<String> upcs = batchKeys(request, "upcs");
+
+        return beerService.getByUpcs(upcs)
+                          .map(beers -> upcs.stream()
+                                            .map(upc -> lookupResult(upc, beers.get(upc)))
+                                            .collect(Collectors.toList()))
+                          .flatMap(results -> ServerResponse.ok()
+                                                            .contentType(responseType(request))
+                                                            .bodyValue(results));
+    }
+
+    private List<String> batchKeys(ServerRequest request, String name) {
+        return batchKeys(request, name, MAX_BATCH_LOOKUP);
+    }
+
+    private List<String> batchKeys(ServerRequest request, String name, int max) {
+        List<String> keys = request.queryParams()
+                                   .getOrDefault(name, List.of())
+                                   .stream()
+                                   .flatMap(value -> Arrays.stream(value.split(",")))
+                                   .map(String::trim)
+                                   .filter(key -> !key.isEmpty())
+                                   .collect(Collectors.toList());
+
+        if (keys.isEmpty() || keys.size() > max) {
+            throw new ServerWebInputException("Between 1 and " + max + " " + name + " required");
+        }
+
+        return keys;
+    }
+
+    private BeerLookupResult lookupResult(String key, BeerDto beerDto) {
+        return BeerLookupResult.builder()
+                               .key(key)
+                               .found(beerDto != null)
+                               .beer(beerDto)
+                               .build();
+    }
+
     public Mono<ServerResponse> getBeerByUpc(ServerRequest request) {
         String beerUpc = request.pathVariable("upc");
 
         return beerService.getByUpc(beerUpc)
-                          .flatMap(beerDto -> {
-                              return ServerResponse.ok()
-                                                   .bodyValue(beerDto);
-                          })
+                          .flatMap(beerDto -> conditional(request, BeerETags.of(beerDto.getId(), beerDto.getVersion()), Mono.just(beerDto)))
                           .switchIfEmpty(ServerResponse.notFound()
                                                        .build());
     }
 
+    /**
+     * An {@code If-Match} header makes the update conditional on the beer still being at that version; a beer that
+     * has moved on is a 409. Answers with the new version's ETag.
+     */
     public Mono<ServerResponse> updateBeer(ServerRequest request) {
+        Integer beerId = Integer.valueOf(request.pathVariable("beerId"));
+        Long expectedVersion = BeerETags.expectedVersion(request.headers()
+                                                                .header(HttpHeaders.IF_MATCH));
+
         return request.bodyToMono(BeerDto.class)
                       .doOnNext(this::validate)
                       .flatMap(beerDto -> {
-                          return beerService.updateBeer(Integer.valueOf(request.pathVariable("beerId")), beerDto);
+                          return beerService.updateBeer(beerId, expectedVersion, beerDto);
                       })
                       .flatMap(savedBeerDto -> {
-                          if (savedBeerDto.getId() != null) {
-                              log.debug("Saved Beer Id:{}", savedBeerDto.getId());
-                              return ServerResponse.noContent()
-                                                   .build();
-                          } else {
-                              log.debug("Saved Beer Id {} Not Found", request.pathVariable("beerId"));
-                              return ServerResponse.notFound()
-                                                   .build();
-                          }
-                      });
+                          log.debug("Saved Beer Id:{}", savedBeerDto.getId());
+                          return ServerResponse.noContent()
+                                               .eTag(BeerETags.of(savedBeerDto.getVersion()))
+                                               .build();
+                      })
+                      .onErrorResume(NotFoundException.class, e -> {
+                          log.debug("Saved Beer Id {} Not Found", beerId);
+                          return ServerResponse.notFound()
+                                               .build();
+                      })
+                      .onErrorResume(OptimisticLockingFailureException.class, e -> {
+                          log.debug("Beer Id {} changed concurrently", beerId, e);
+                          return ServerResponse.status(HttpStatus.CONFLICT)
+                                               .build();
+                      })
+                      .onErrorResume(DataIntegrityViolationException.class, this::upcConflict);
+    }
+
+    /**
+     * UPCs are unique ({@code ux_beer_upc}); reusing one is a conflict with an existing beer, not a server error.
+     */
+    private Mono<ServerResponse> upcConflict(DataIntegrityViolationException e) {
+        log.debug("Duplicate UPC", e);
+        return ServerResponse.status(HttpStatus.CONFLICT)
+                             .build();
     }
 
     public Mono<ServerResponse> deleteBeer(ServerRequest request) {
         return beerService.reactiveDeleteById(Integer.valueOf(request.pathVariable("beerId")))
-                          .flatMap(voidMono -> {
-                              return ServerResponse.ok()
-                                                   .build();
-                          })
+                          .then(ServerResponse.ok()
+                                              .build())
                           .onErrorResume(e -> e instanceof NotFoundException, e -> ServerResponse.notFound()
                                                                                                  .build());
     }
+
+    /**
+     * Deletes the beers named by the {@code ids} parameter (repeated or comma separated) with one statement. Ids
+     * that do not exist are skipped rather than failing the request.
+     */
+    public Mono<ServerResponse> deleteBeers(ServerRequest request) {
+        Set<Integer> beerIds = new LinkedHashSet<>();
+
+        try {
+            batchKeys(request, "ids", MAX_BATCH_DELETE).forEach(key -> beerIds.add(Integer.valueOf(key)));
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid ids");
+        }
+
+        return beerService.deleteByIds(beerIds)
+                          .flatMap(deleted -> ServerResponse.ok()
+                                                            .contentType(responseType(request))
+                                                            .bodyValue(BeerBulkDeleteResult.builder()
+                                                                                           .requested(beerIds.size())
+                                                                                           .deleted(deleted)
+                                                                                           .build()));
+    }
+
+    /**
+     * Applies one stock movement atomically. A decrement or reservation larger than the stock on hand is a 409 and
+     * changes nothing. With {@code durable=true} the movement is written before the response even if increments are
+     * otherwise buffered.
+     */
+    public Mono<ServerResponse> adjustInventory(ServerRequest request) {
+        Integer beerId = Integer.valueOf(request.pathVariable("beerId"));
+        boolean durable = Boolean.parseBoolean(request.queryParam("durable")
+                                                      .orElse("false"));
+
+        return request.bodyToMono(InventoryAdjustment.class)
+                      .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Inventory adjustment required")))
+                      .doOnNext(this::validate)
+                      .flatMap(adjustment -> inventoryService.adjust(beerId, adjustment.delta(), durable))
+                      .then(ServerResponse.noContent()
+                                          .build())
+                      .onErrorResume(NotFoundException.class, e -> ServerResponse.notFound()
+                                                                                 .build())
+                      .onErrorResume(InsufficientInventoryException.class, e -> {
+                          log.debug("Inventory of Beer Id {} not adjusted", beerId, e);
+                          return ServerResponse.status(HttpStatus.CONFLICT)
+                                               .build();
+                      });
+    }
 }
@@ -1,12 +1,17 @@
 package guru.springframework.sfgrestbrewery.web.functional;
 
+import guru.springframework.sfgrestbrewery.config.CodecConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
 import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
 
 @Configuration
@@ -15,14 +20,34 @@ public class BeerRouterConfiguration {
     public static final String BEER_V2_URL = "/api/v2/beer";
     public static final String BEER_V2_URL_ID = "/api/v2/beer/{beerId}";
     public static final String BEER_V2_UPC = "/api/v2/beerUpc";
+    public static final String BEER_V2_STREAM = "/api/v2/beer/stream";
+    public static final String BEER_V2_SEARCH = "/api/v2/beer/search";
+    public static final String BEER_V2_STATS = "/api/v2/beer/stats";
+    public static final String BEER_V2_BULK = "/api/v2/beer/bulk";
+    public static final String BEER_V2_BATCH = "/api/v2/beer/batch";
+    public static final String BEER_V2_INVENTORY = "/api/v2/beer/{beerId}/inventory";
+    public static final String BEER_V2_UPC_BATCH = "/api/v2/beerUpc/batch";
+
+    // JSON, or one of the binary encodings for service-to-service callers
+    private static final MediaType[] BEER_MEDIA_TYPES = CodecConfiguration.MEDIA_TYPES.toArray(new MediaType[0]);
 
     @Bean
     public RouterFunction<ServerResponse> beerRoutesV2(BeerHandlerV2 handler) {
-        return route().GET(BEER_V2_URL_ID, accept(APPLICATION_JSON), handler::getBeerById)
-                      .GET(BEER_V2_UPC +"/{upc}", accept(APPLICATION_JSON), handler::getBeerByUpc)
-                      .POST(BEER_V2_URL,accept(APPLICATION_JSON), handler::saveNewBeer)
-                      .PUT(BEER_V2_URL_ID,accept(APPLICATION_JSON),handler::updateBeer)
-                      .DELETE(BEER_V2_URL_ID,accept(APPLICATION_JSON),handler::deleteBeer)
+        // fixed paths under /beer must come before the {beerId} routes
+        return route().GET(BEER_V2_STREAM, accept(APPLICATION_NDJSON, TEXT_EVENT_STREAM), handler::streamBeers)
+                      .GET(BEER_V2_SEARCH, accept(BEER_MEDIA_TYPES), handler::searchBeers)
+                      .GET(BEER_V2_STATS, accept(BEER_MEDIA_TYPES), handler::getStatistics)
+                      .GET(BEER_V2_BATCH, accept(BEER_MEDIA_TYPES), handler::getBeersByIds)
+                      .GET(BEER_V2_UPC_BATCH, accept(BEER_MEDIA_TYPES), handler::getBeersByUpcs)
+                      .GET(BEER_V2_URL, accept(BEER_MEDIA_TYPES), handler::listBeers)
+                      .GET(BEER_V2_URL_ID, accept(BEER_MEDIA_TYPES), handler::getBeerById)
+                      .GET(BEER_V2_UPC +"/{upc}", accept(BEER_MEDIA_TYPES), handler::getBeerByUpc)
+                      .POST(BEER_V2_BULK, contentType(APPLICATION_NDJSON, APPLICATION_JSON), handler::saveNewBeers)
+                      .POST(BEER_V2_INVENTORY, contentType(BEER_MEDIA_TYPES), handler::adjustInventory)
+                      .POST(BEER_V2_URL,accept(BEER_MEDIA_TYPES), handler::saveNewBeer)
+                      .PUT(BEER_V2_URL_ID,accept(BEER_MEDIA_TYPES),handler::updateBeer)
+                      .DELETE(BEER_V2_URL, accept(BEER_MEDIA_TYPES), handler::deleteBeers)
+                      .DELETE(BEER_V2_URL_ID,accept(BEER_MEDIA_TYPES),handler::deleteBeer)
                       .build();
     }
 
@@ -17,4 +17,12 @@ public interface BeerMapper {
     BeerDto beerToBeerDtoWithInventory(Beer beer);
 
     Beer beerDtoToBeer(BeerDto dto);
+
+    /**
+     * A beer to be created: its id and version are the server's to assign, whatever the client sent.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "lastModifiedDate", ignore = true)
+    Beer beerDtoToNewBeer(BeerDto dto);
 }
@@ -0,0 +1,19 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a delete by id list: ids that did not exist are requested but not deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerBulkDeleteResult {
+
+    private int requested;
+    private int deleted;
+}
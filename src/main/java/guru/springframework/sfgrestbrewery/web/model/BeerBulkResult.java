@@ -0,0 +1,28 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of one element of a bulk beer upload, identified by its zero based position in the request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerBulkResult {
+
+    public enum Status {
+        CREATED, INVALID, FAILED
+    }
+
+    private long index;
+    private Status status;
+    private Integer id;
+    private String upc;
+    private List<String> errors;
+}
@@ -0,0 +1,22 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Catalog totals and one entry per style that has beers, in style declaration order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerCatalogStats {
+
+    private long count;
+    private long quantityOnHand;
+    private List<BeerStyleStats> styles;
+}
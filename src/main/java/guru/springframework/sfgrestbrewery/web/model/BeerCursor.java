@@ -0,0 +1,45 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination of the beer list. Clients must treat the token as a black box.
+ */
+public final class BeerCursor {
+
+    private static final String PREFIX = "id:";
+
+    private BeerCursor() {
+    }
+
+    public static String encode(Integer lastId) {
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor to the last seen id. An empty cursor starts from the beginning of the list.
+     */
+    public static Integer decode(String cursor) {
+        if (!StringUtils.hasLength(cursor)) {
+            return null;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+
+            return Integer.valueOf(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -20,6 +20,8 @@ public class BeerDto {
 
     private Integer id;
 
+    private Long version;
+
     @NotBlank
     private String beerName;
 
@@ -0,0 +1,20 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a batch lookup: the requested id or UPC, and the beer if it exists.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerLookupResult {
+
+    private String key;
+    private boolean found;
+    private BeerDto beer;
+}
@@ -0,0 +1,50 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The lean page envelope of v2 listings: the beers, the total and how to ask for the next page, without the
+ * {@link BeerPagedList} page internals. Written by {@link BeerPageSerializer}.
+ */
+@Value
+@JsonSerialize(using = BeerPageSerializer.class)
+public class BeerPage {
+
+    List<BeerDto> content;
+    long total;
+
+    /**
+     * The next page number when listing by page number, null on the last page and in keyset mode.
+     */
+    Integer nextPage;
+
+    /**
+     * The cursor for the next page in keyset mode, null on the last page and when listing by page number.
+     */
+    String nextCursor;
+
+    @JsonCreator
+    public BeerPage(@JsonProperty("content") List<BeerDto> content,
+                    @JsonProperty("total") long total,
+                    @JsonProperty("nextPage") Integer nextPage,
+                    @JsonProperty("nextCursor") String nextCursor) {
+        this.content = content == null ? List.of() : content;
+        this.total = total;
+        this.nextPage = nextPage;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @param keyset whether the page was listed with a cursor rather than a page number
+     */
+    public static BeerPage of(BeerPagedList page, boolean keyset) {
+        Integer nextPage = !keyset && page.hasNext() ? page.getNumber() + 1 : null;
+
+        return new BeerPage(page.getContent(), page.getTotalElements(), nextPage, page.getNextCursor());
+    }
+}
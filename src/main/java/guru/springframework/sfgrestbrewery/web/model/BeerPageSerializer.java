@@ -0,0 +1,121 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes a {@link BeerPage} field by field with pre-encoded names, beers included, instead of going through bean
+ * introspection. Null fields are left out. Dates are written as Jackson's own {@code LocalDateTime} serializer
+ * writes them, or handed to it when the mapper writes dates as timestamps.
+ *
+ * Any property added to {@link BeerDto} must be added here as well.
+ */
+public class BeerPageSerializer extends StdSerializer<BeerPage> {
+
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString TOTAL = new SerializedString("total");
+    private static final SerializableString NEXT_PAGE = new SerializedString("nextPage");
+    private static final SerializableString NEXT_CURSOR = new SerializedString("nextCursor");
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString BEER_NAME = new SerializedString("beerName");
+    private static final SerializableString BEER_STYLE = new SerializedString("beerStyle");
+    private static final SerializableString UPC = new SerializedString("upc");
+    private static final SerializableString PRICE = new SerializedString("price");
+    private static final SerializableString QUANTITY_ON_HAND = new SerializedString("quantityOnHand");
+    private static final SerializableString CREATED_DATE = new SerializedString("createdDate");
+    private static final SerializableString LAST_UPDATED_DATE = new SerializedString("lastUpdatedDate");
+
+    public BeerPageSerializer() {
+        super(BeerPage.class);
+    }
+
+    @Override
+    public void serialize(BeerPage page, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(page);
+
+        generator.writeFieldName(CONTENT);
+        generator.writeStartArray(page.getContent(), page.getContent().size());
+        for (BeerDto beer : page.getContent()) {
+            writeBeer(beer, generator, provider);
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(TOTAL);
+        generator.writeNumber(page.getTotal());
+
+        if (page.getNextPage() != null) {
+            generator.writeFieldName(NEXT_PAGE);
+            generator.writeNumber(page.getNextPage());
+        }
+
+        if (page.getNextCursor() != null) {
+            generator.writeFieldName(NEXT_CURSOR);
+            generator.writeString(page.getNextCursor());
+        }
+
+        generator.writeEndObject();
+    }
+
+    private void writeBeer(BeerDto beer, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(beer);
+
+        if (beer.getId() != null) {
+            generator.writeFieldName(ID);
+            generator.writeNumber(beer.getId());
+        }
+
+        if (beer.getVersion() != null) {
+            generator.writeFieldName(VERSION);
+            generator.writeNumber(beer.getVersion());
+        }
+
+        writeString(BEER_NAME, beer.getBeerName(), generator);
+        writeString(BEER_STYLE, beer.getBeerStyle(), generator);
+        writeString(UPC, beer.getUpc(), generator);
+
+        if (beer.getPrice() != null) {
+            generator.writeFieldName(PRICE);
+            generator.writeNumber(beer.getPrice());
+        }
+
+        if (beer.getQuantityOnHand() != null) {
+            generator.writeFieldName(QUANTITY_ON_HAND);
+            generator.writeNumber(beer.getQuantityOnHand());
+        }
+
+        writeDate(CREATED_DATE, beer.getCreatedDate(), generator, provider);
+        writeDate(LAST_UPDATED_DATE, beer.getLastUpdatedDate(), generator, provider);
+
+        generator.writeEndObject();
+    }
+
+    private static void writeString(SerializableString name, String value, JsonGenerator generator) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        }
+    }
+
+    private static void writeDate(SerializableString name, LocalDateTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            provider.defaultSerializeField(name.getValue(), value, generator);
+        } else {
+            generator.writeFieldName(name);
+            generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+        }
+    }
+}
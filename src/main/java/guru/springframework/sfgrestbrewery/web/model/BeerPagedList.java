@@ -2,6 +2,7 @@ package guru.springframework.sfgrestbrewery.web.model;
 
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.data.domain.PageImpl;
@@ -18,6 +19,8 @@ public class BeerPagedList extends PageImpl<BeerDto> implements Serializable {
 
     static final long serialVersionUID = 1114715135625836949L;
 
+    private final String nextCursor;
+
     @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
     public BeerPagedList(@JsonProperty("content") List<BeerDto> content,
                          @JsonProperty("number") int number,
@@ -28,16 +31,32 @@ public class BeerPagedList extends PageImpl<BeerDto> implements Serializable {
                          @JsonProperty("totalPages") int totalPages,
                          @JsonProperty("sort") JsonNode sort,
                          @JsonProperty("first") boolean first,
-                         @JsonProperty("numberOfElements") int numberOfElements) {
+                         @JsonProperty("numberOfElements") int numberOfElements,
+                         @JsonProperty("nextCursor") String nextCursor) {
 
         super(content, PageRequest.of(number, size), totalElements);
+        this.nextCursor = nextCursor;
     }
 
     public BeerPagedList(List<BeerDto> content, Pageable pageable, long total) {
+        this(content, pageable, total, null);
+    }
+
+    public BeerPagedList(List<BeerDto> content, Pageable pageable, long total, String nextCursor) {
         super(content, pageable, total);
+        this.nextCursor = nextCursor;
     }
 
     public BeerPagedList(List<BeerDto> content) {
         super(content);
+        this.nextCursor = null;
+    }
+
+    /**
+     * Cursor for the following page when listing in keyset mode, null on the last page or in page number mode.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getNextCursor() {
+        return nextCursor;
     }
 }
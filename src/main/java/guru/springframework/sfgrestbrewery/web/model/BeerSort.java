@@ -0,0 +1,39 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.Set;
+
+/**
+ * The {@code sort} parameter of the beer list: {@code property[,asc|desc]}, ascending by default. Which properties
+ * and directions are served depends on the filter; that is checked by the service.
+ */
+public final class BeerSort {
+
+    private static final Set<String> PROPERTIES = Set.of("beerName", "price", "createdDate", "quantityOnHand");
+
+    private BeerSort() {
+    }
+
+    /**
+     * An absent or empty parameter is unsorted.
+     */
+    public static Sort parse(String sort) {
+        if (!StringUtils.hasLength(sort)) {
+            return Sort.unsorted();
+        }
+
+        String[] parts = sort.split(",", -1);
+
+        if (parts.length > 2 || !PROPERTIES.contains(parts[0])) {
+            throw new ServerWebInputException("Invalid sort: " + sort);
+        }
+
+        Sort.Direction direction = parts.length == 1 ? Sort.Direction.ASC : Sort.Direction.fromOptionalString(parts[1])
+                                                                                          .orElseThrow(() -> new ServerWebInputException("Invalid sort: " + sort));
+
+        return Sort.by(direction, parts[0]);
+    }
+}
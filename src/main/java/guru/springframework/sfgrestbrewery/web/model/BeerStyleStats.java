@@ -0,0 +1,25 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregates over the beers of one style. Prices are over the beers that have one; they are null if none has.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerStyleStats {
+
+    private BeerStyleEnum beerStyle;
+    private long count;
+    private long quantityOnHand;
+    private BigDecimal averagePrice;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
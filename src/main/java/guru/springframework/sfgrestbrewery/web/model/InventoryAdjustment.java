@@ -0,0 +1,34 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+/**
+ * A stock movement for one beer. Reserving takes stock off hand like a decrement and releasing puts it back; both
+ * are refused rather than taking the stock below zero.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryAdjustment {
+
+    public enum Type {
+        INCREMENT, DECREMENT, RESERVE, RELEASE
+    }
+
+    @NotNull
+    private Type type;
+
+    @Positive
+    private int quantity;
+
+    public int delta() {
+        return type == Type.INCREMENT || type == Type.RELEASE ? quantity : -quantity;
+    }
+}
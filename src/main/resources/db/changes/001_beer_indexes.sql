@@ -0,0 +1,7 @@
+-- UPC is the external key for a beer and is looked up on every /beerUpc request
+CREATE UNIQUE INDEX IF NOT EXISTS ux_beer_upc ON beer (upc);
+
+-- listBeers filters on name, name + style or style, paged or ordered by id;
+-- the name-only filter uses the leading column of the composite index
+CREATE INDEX IF NOT EXISTS ix_beer_name_style_id ON beer (beer_name, beer_style, id);
+CREATE INDEX IF NOT EXISTS ix_beer_style_id ON beer (beer_style, id);
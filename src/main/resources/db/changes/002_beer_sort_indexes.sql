@@ -0,0 +1,13 @@
+-- listBeers sorts (see BeerQueries): one index per whitelisted sort and filter shape, so pages are read off an index
+-- in order; id breaks ties. H2 does not scan indexes backwards, so descending sorts need descending indexes.
+CREATE INDEX IF NOT EXISTS ix_beer_name_id ON beer (beer_name, id);
+CREATE INDEX IF NOT EXISTS ix_beer_price_id ON beer (price, id);
+CREATE INDEX IF NOT EXISTS ix_beer_price_desc_id ON beer (price DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_beer_created_desc_id ON beer (created_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_beer_quantity_desc_id ON beer (quantity_on_hand DESC, id DESC);
+
+-- the same sorts within one style; the style leads the ORDER BY so the index order is recognized
+CREATE INDEX IF NOT EXISTS ix_beer_style_name_id ON beer (beer_style, beer_name, id);
+CREATE INDEX IF NOT EXISTS ix_beer_style_price_id ON beer (beer_style, price, id);
+CREATE INDEX IF NOT EXISTS ix_beer_style_price_desc_id ON beer (beer_style, price DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_beer_style_created_desc_id ON beer (beer_style, created_date DESC, id DESC);
@@ -0,0 +1,73 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeerCountCacheTest {
+
+    BeerFilter stouts = new BeerFilter(null, BeerStyleEnum.STOUT);
+    BeerFilter all = new BeerFilter(null, null);
+
+    BeerCountCache countCache;
+
+    @BeforeEach
+    void setUp() {
+        countCache = new BeerCountCache(Caffeine.newBuilder().build());
+        countCache.get(stouts, () -> Mono.just(5L)).block();
+        countCache.get(all, () -> Mono.just(20L)).block();
+    }
+
+    @Test
+    void countIsLoadedOnce() {
+        assertThat(countCache.get(stouts, () -> Mono.error(new IllegalStateException())).block()).isEqualTo(5L);
+    }
+
+    @Test
+    void createAndDeleteAdjustMatchingFilters() {
+        countCache.beerCreated(beer(BeerStyleEnum.STOUT));
+        countCache.beerCreated(beer(BeerStyleEnum.IPA));
+        countCache.beerDeleted(beer(BeerStyleEnum.IPA));
+
+        assertThat(countCache.get(stouts, Mono::empty).block()).isEqualTo(6L);
+        assertThat(countCache.get(all, Mono::empty).block()).isEqualTo(21L);
+    }
+
+    @Test
+    void bulkCreateAdjustsMatchingFilters() {
+        countCache.beersCreated(List.of(beer(BeerStyleEnum.STOUT), beer(BeerStyleEnum.IPA), beer(BeerStyleEnum.STOUT)));
+
+        assertThat(countCache.get(stouts, Mono::empty).block()).isEqualTo(7L);
+        assertThat(countCache.get(all, Mono::empty).block()).isEqualTo(23L);
+    }
+
+    @Test
+    void updateMovesBeerBetweenFilters() {
+        countCache.beerUpdated(beer(BeerStyleEnum.STOUT), beer(BeerStyleEnum.IPA));
+
+        assertThat(countCache.get(stouts, Mono::empty).block()).isEqualTo(4L);
+        assertThat(countCache.get(all, Mono::empty).block()).isEqualTo(20L);
+    }
+
+    @Test
+    void deleteByIdReloadsEveryCount() {
+        countCache.beersDeleted(List.of(1, 2));
+
+        assertThat(countCache.get(stouts, () -> Mono.just(3L)).block()).isEqualTo(3L);
+        assertThat(countCache.get(all, () -> Mono.just(18L)).block()).isEqualTo(18L);
+    }
+
+    private Beer beer(BeerStyleEnum beerStyle) {
+        return Beer.builder()
+                   .beerName("Test")
+                   .beerStyle(beerStyle)
+                   .build();
+    }
+}
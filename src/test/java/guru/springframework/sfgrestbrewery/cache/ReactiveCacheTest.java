@@ -0,0 +1,123 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+
+class ReactiveCacheTest {
+
+    ReactiveCache<Integer, String> cache;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReactiveCache<>("test", Caffeine.newBuilder()
+                                                    .recordStats()
+                                                    .buildAsync());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void cachesEmittedValue() {
+        Mono<String> first = cache.get(1, key -> load("one"));
+        Mono<String> second = cache.get(1, key -> load("other"));
+
+        assertThat(first.block()).isEqualTo("one");
+        assertThat(second.block()).isEqualTo("one");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void emptyResultIsNotCached() {
+        assertThat(cache.get(1, key -> Mono.<String>empty()).block()).isNull();
+        assertThat(cache.get(1, key -> load("one")).block()).isEqualTo("one");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void evictForcesReload() {
+        cache.get(1, key -> load("one")).block();
+        cache.evict(1);
+
+        assertThat(cache.get(1, key -> load("two")).block()).isEqualTo("two");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void evictIfValueMatchesLoadedValues() {
+        cache.get(1, key -> load("one")).block();
+        cache.get(2, key -> load("two")).block();
+
+        cache.evictIfValue("two"::equals);
+
+        assertThat(cache.getIfPresent(1)).isEqualTo("one");
+        assertThat(cache.getIfPresent(2)).isNull();
+    }
+
+    @Test
+    void loaderMayEvictFromTheSameCache() {
+        Mono<String> value = cache.get(1, key -> load("one").doOnNext(loaded -> cache.evict(1)));
+
+        assertThat(value.block()).isEqualTo("one");
+        assertThat(cache.getIfPresent(1)).isNull();
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        Mono<String> failed = cache.get(1, key -> Mono.error(new IllegalStateException("boom")));
+
+        assertThat(catchThrowable(failed::block)).hasMessageContaining("boom");
+        assertThat(cache.get(1, key -> load("one")).block()).isEqualTo("one");
+    }
+
+    @Test
+    void getAllLoadsMissesTogether() {
+        cache.get(1, key -> load("one")).block();
+        List<Set<Integer>> batches = new ArrayList<>();
+
+        Map<Integer, String> values = cache.getAll(List.of(1, 2, 3), keys -> {
+            batches.add(keys);
+            return Mono.just(Map.of(2, "two"));
+        }).block();
+
+        assertThat(values).containsOnly(entry(1, "one"), entry(2, "two"));
+        assertThat(batches).containsExactly(Set.of(2, 3));
+        assertThat(cache.getIfPresent(2)).isEqualTo("two");
+        assertThat(cache.getIfPresent(3)).isNull();
+    }
+
+    @Test
+    void getAllDoesNotCacheValuesEvictedWhileLoading() {
+        Sinks.One<Map<Integer, String>> load = Sinks.one();
+        CompletableFuture<Map<Integer, String>> values = cache.getAll(List.of(1), keys -> load.asMono())
+                                                              .toFuture();
+
+        cache.evict(1);
+        load.tryEmitValue(Map.of(1, "stale"));
+
+        assertThat(values.join()).containsEntry(1, "stale");
+        assertThat(cache.getIfPresent(1)).isNull();
+    }
+
+    private Mono<String> load(String value) {
+        return Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return value;
+        });
+    }
+}
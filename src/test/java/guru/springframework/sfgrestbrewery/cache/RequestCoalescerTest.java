@@ -0,0 +1,70 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescerTest {
+
+    RequestCoalescer<Integer, String> coalescer;
+    Sinks.One<String> result;
+    AtomicInteger subscriptions;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new RequestCoalescer<>("test");
+        result = Sinks.one();
+        subscriptions = new AtomicInteger();
+    }
+
+    @Test
+    void concurrentCallsShareOneQuery() {
+        AtomicReference<String> first = new AtomicReference<>();
+        AtomicReference<String> second = new AtomicReference<>();
+
+        coalescer.execute(1, this::query).subscribe(first::set);
+        coalescer.execute(1, this::query).subscribe(second::set);
+        result.tryEmitValue("beer");
+
+        assertThat(first.get()).isEqualTo("beer");
+        assertThat(second.get()).isEqualTo("beer");
+        assertThat(subscriptions.get()).isEqualTo(1);
+        assertThat(coalescer.coalescedCount()).isEqualTo(1);
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void completedCallIsNotReused() {
+        result.tryEmitValue("beer");
+
+        coalescer.execute(1, this::query).block();
+        coalescer.execute(1, this::query).block();
+
+        assertThat(subscriptions.get()).isEqualTo(2);
+        assertThat(coalescer.coalescedCount()).isZero();
+    }
+
+    @Test
+    void cancellationByAllCallersCleansUp() {
+        Disposable first = coalescer.execute(1, this::query).subscribe();
+        Disposable second = coalescer.execute(1, this::query).subscribe();
+
+        first.dispose();
+        assertThat(coalescer.inFlightCount()).isEqualTo(1);
+
+        second.dispose();
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    private Mono<String> query(Integer key) {
+        return result.asMono()
+                     .doOnSubscribe(subscription -> subscriptions.incrementAndGet());
+    }
+}
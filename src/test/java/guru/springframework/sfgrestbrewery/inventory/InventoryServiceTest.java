@@ -0,0 +1,138 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class InventoryServiceTest {
+
+    BeerRepository beerRepository;
+    List<Map<Integer, Long>> stockChanges;
+    InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        beerRepository = mock(BeerRepository.class);
+        stockChanges = new ArrayList<>();
+
+        InventoryProperties properties = new InventoryProperties();
+        properties.setHotBeerIds(Set.of(1, 2));
+        // flushed by the tests themselves
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setStripes(2);
+
+        inventoryService = new InventoryService(beerRepository, properties, List.of(stockChanges::add), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void refusedAdjustmentTellsMissingFromShort() {
+        given(beerRepository.adjustQuantityOnHand(anyInt(), anyInt())).willReturn(Mono.just(0));
+        given(beerRepository.existsById(3)).willReturn(Mono.just(true));
+        given(beerRepository.existsById(4)).willReturn(Mono.just(false));
+
+        assertThatThrownBy(() -> inventoryService.adjust(3, -1, false).block()).isInstanceOf(InsufficientInventoryException.class);
+        assertThatThrownBy(() -> inventoryService.adjust(4, -1, false).block()).isInstanceOf(NotFoundException.class);
+        assertThat(stockChanges).isEmpty();
+    }
+
+    @Test
+    void writtenAdjustmentIsReported() {
+        given(beerRepository.adjustQuantityOnHand(3, 2)).willReturn(Mono.just(1));
+
+        inventoryService.adjust(3, 2, false).block();
+
+        assertThat(stockChanges).containsExactly(Map.of(3, 2L));
+    }
+
+    @Test
+    void hotBeerIsLoadedOnceAndFlushedAsNetChange() {
+        given(beerRepository.findQuantityOnHandById(1)).willReturn(Mono.just(5));
+        given(beerRepository.addQuantitiesOnHand(any())).willReturn(Flux.just(1));
+
+        inventoryService.adjust(1, 3, false).block();
+        inventoryService.adjust(1, -8, false).block();
+        assertThatThrownBy(() -> inventoryService.adjust(1, -1, false).block()).isInstanceOf(InsufficientInventoryException.class);
+
+        inventoryService.flush().block();
+        inventoryService.flush().block();
+
+        verify(beerRepository).findQuantityOnHandById(1);
+        verify(beerRepository).addQuantitiesOnHand(Map.of(1, -5L));
+        verify(beerRepository, never()).adjustQuantityOnHand(anyInt(), anyInt());
+        assertThat(stockChanges).containsExactly(Map.of(1, -5L));
+    }
+
+    @Test
+    void durableHotAdjustmentIsWrittenBeforeCompleting() {
+        given(beerRepository.findQuantityOnHandById(1)).willReturn(Mono.just(5));
+        given(beerRepository.addQuantitiesOnHand(any())).willReturn(Flux.just(1));
+
+        inventoryService.adjust(1, 2, false).block();
+        inventoryService.adjust(1, -3, true).block();
+        verify(beerRepository).addQuantitiesOnHand(Map.of(1, -3L));
+
+        // only the change that was not written yet is left to the flush
+        inventoryService.flush().block();
+        verify(beerRepository).addQuantitiesOnHand(Map.of(1, 2L));
+        assertThat(stockChanges).containsExactly(Map.of(1, -3L), Map.of(1, 2L));
+    }
+
+    @Test
+    void failedDurableHotAdjustmentIsTakenBack() {
+        given(beerRepository.findQuantityOnHandById(1)).willReturn(Mono.just(5));
+        given(beerRepository.addQuantitiesOnHand(any())).willReturn(Flux.error(new IllegalStateException()), Flux.just(1));
+
+        assertThatThrownBy(() -> inventoryService.adjust(1, -5, true).block()).isInstanceOf(IllegalStateException.class);
+
+        // all five are still on hand, and the flush writes only the adjustment that succeeded
+        inventoryService.adjust(1, -5, false).block();
+        inventoryService.flush().block();
+        verify(beerRepository, times(2)).addQuantitiesOnHand(Map.of(1, -5L));
+        verify(beerRepository, times(2)).addQuantitiesOnHand(any());
+        assertThat(stockChanges).containsExactly(Map.of(1, -5L));
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        given(beerRepository.findQuantityOnHandById(1)).willReturn(Mono.just(0));
+        given(beerRepository.addQuantitiesOnHand(any())).willReturn(Flux.error(new IllegalStateException()), Flux.just(1));
+
+        inventoryService.adjust(1, 2, false).block();
+        inventoryService.flush().block();
+        inventoryService.adjust(1, 1, false).block();
+        inventoryService.flush().block();
+
+        verify(beerRepository).addQuantitiesOnHand(Map.of(1, 2L));
+        verify(beerRepository).addQuantitiesOnHand(Map.of(1, 3L));
+    }
+
+    @Test
+    void missingHotBeerIsNotKept() {
+        given(beerRepository.findQuantityOnHandById(2)).willReturn(Mono.empty());
+
+        assertThatThrownBy(() -> inventoryService.adjust(2, 1, false).block()).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> inventoryService.adjust(2, 1, false).block()).isInstanceOf(NotFoundException.class);
+
+        verify(beerRepository, times(2)).findQuantityOnHandById(2);
+    }
+}
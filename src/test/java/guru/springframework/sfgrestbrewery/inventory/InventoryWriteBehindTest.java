@@ -0,0 +1,181 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class InventoryWriteBehindTest {
+
+    BeerRepository beerRepository;
+    SimpleMeterRegistry meterRegistry;
+    InventoryWriteBehind writeBehind;
+    List<Map<Integer, Long>> flushes;
+    List<Map<Integer, Long>> stockChanges;
+
+    @BeforeEach
+    void setUp() {
+        beerRepository = mock(BeerRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        flushes = new ArrayList<>();
+        stockChanges = new ArrayList<>();
+
+        given(beerRepository.addQuantitiesOnHand(any())).willAnswer(invocation -> {
+            Map<Integer, Long> deltas = invocation.getArgument(0);
+            flushes.add(new LinkedHashMap<>(deltas));
+            return Flux.fromIterable(deltas.keySet()).map(beerId -> beerId == 99 ? 0 : 1);
+        });
+        given(beerRepository.existsById(any(Integer.class))).willReturn(Mono.just(true));
+
+        InventoryProperties.WriteBehind properties = new InventoryProperties.WriteBehind();
+        // flushed by the tests themselves unless the batch fills up
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setMaxBatchSize(3);
+        properties.setMaxBeers(4);
+
+        writeBehind = new InventoryWriteBehind(beerRepository, properties, stockChanges::add, meterRegistry);
+    }
+
+    @Test
+    void incrementsAreSummedPerBeer() {
+        writeBehind.adjust(1, 2, false).block();
+        writeBehind.adjust(1, 3, false).block();
+        writeBehind.adjust(2, 1, false).block();
+        writeBehind.adjust(99, 1, false).block();
+
+        writeBehind.flush().block();
+
+        assertThat(flushes).containsExactly(Map.of(1, 5L, 2, 1L, 99, 1L));
+        assertThat(stockChanges).containsExactly(Map.of(1, 5L, 2, 1L));
+        assertThat(meterRegistry.get("beer.inventory.write.behind.coalescing").summary().max()).isEqualTo(4.0 / 3);
+        assertThat(meterRegistry.get("beer.inventory.write.behind.dropped").counter().count()).isEqualTo(1);
+        verify(beerRepository, never()).adjustQuantityOnHand(any(), any(Integer.class));
+        verify(beerRepository).existsById(1);
+    }
+
+    @Test
+    void incrementToMissingBeerIsRefused() {
+        given(beerRepository.existsById(7)).willReturn(Mono.just(false));
+
+        assertThat(writeBehind.adjust(7, 1, false).block()).isZero();
+
+        writeBehind.flush().block();
+        assertThat(flushes).isEmpty();
+    }
+
+    @Test
+    void forgottenBeerIsCheckedAgain() {
+        writeBehind.adjust(1, 2, false).block();
+        writeBehind.forget(1);
+        given(beerRepository.existsById(1)).willReturn(Mono.just(false));
+
+        assertThat(writeBehind.adjust(1, 1, false).block()).isZero();
+
+        writeBehind.flush().block();
+        assertThat(flushes).isEmpty();
+    }
+
+    @Test
+    void overflowingWriteLeavesBufferedSumBuffered() {
+        writeBehind.adjust(1, Integer.MAX_VALUE, false).block();
+        writeBehind.adjust(1, 1, false).block();
+
+        assertThatThrownBy(() -> writeBehind.adjust(1, 1, true).block()).isInstanceOf(ArithmeticException.class);
+
+        writeBehind.flush().block();
+        assertThat(flushes).containsExactly(Map.of(1, Integer.MAX_VALUE + 1L));
+    }
+
+    @Test
+    void decrementTakesBufferedSumWithIt() {
+        given(beerRepository.adjustQuantityOnHand(1, 4)).willReturn(Mono.just(1));
+
+        writeBehind.adjust(1, 5, false).block();
+        assertThat(writeBehind.adjust(1, -1, false).block()).isEqualTo(1);
+
+        writeBehind.flush().block();
+        assertThat(flushes).isEmpty();
+    }
+
+    @Test
+    void refusedWriteLeavesBufferedSumBuffered() {
+        given(beerRepository.adjustQuantityOnHand(1, -5)).willReturn(Mono.just(0));
+
+        writeBehind.adjust(1, 5, false).block();
+        assertThat(writeBehind.adjust(1, -10, false).block()).isZero();
+
+        writeBehind.flush().block();
+        assertThat(flushes).containsExactly(Map.of(1, 5L));
+        assertThat(stockChanges).containsExactly(Map.of(1, 5L));
+    }
+
+    @Test
+    void durableIncrementIsWrittenImmediately() {
+        given(beerRepository.adjustQuantityOnHand(1, 3)).willReturn(Mono.just(1));
+
+        writeBehind.adjust(1, 2, false).block();
+        writeBehind.adjust(1, 1, true).block();
+
+        verify(beerRepository).adjustQuantityOnHand(1, 3);
+        assertThat(stockChanges).containsExactly(Map.of(1, 3L));
+    }
+
+    @Test
+    void fullBatchIsFlushedWithoutWaiting() {
+        writeBehind.adjust(1, 1, false).block();
+        writeBehind.adjust(2, 1, false).block();
+        writeBehind.adjust(3, 1, false).block();
+
+        assertThat(flushes).containsExactly(Map.of(1, 1L, 2, 1L, 3, 1L));
+    }
+
+    @Test
+    void beersBeyondTheBoundAreWrittenThrough() {
+        given(beerRepository.adjustQuantityOnHand(5, 1)).willReturn(Mono.just(1));
+
+        writeBehind.adjust(1, 1, false).block();
+        writeBehind.adjust(2, 1, false).block();
+        writeBehind.flush().block();
+        // cells emptied by the flush still count until the next one removes them
+        writeBehind.adjust(3, 1, false).block();
+        writeBehind.adjust(4, 1, false).block();
+        writeBehind.adjust(5, 1, false).block();
+
+        verify(beerRepository).adjustQuantityOnHand(5, 1);
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        willReturn(Flux.error(new IllegalStateException())).willAnswer(invocation -> {
+                                                               flushes.add(new LinkedHashMap<>(invocation.getArgument(0)));
+                                                               return Flux.just(1);
+                                                           })
+                                                           .given(beerRepository)
+                                                           .addQuantitiesOnHand(any());
+
+        writeBehind.adjust(1, 2, false).block();
+        writeBehind.flush().block();
+        writeBehind.adjust(1, 1, false).block();
+        writeBehind.flush().block();
+
+        assertThat(flushes).containsExactly(Map.of(1, 3L));
+        assertThat(meterRegistry.get("beer.inventory.write.behind.flush").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+}
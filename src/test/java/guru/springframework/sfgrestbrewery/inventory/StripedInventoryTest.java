@@ -0,0 +1,74 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedInventoryTest {
+
+    @Test
+    void decrementGathersStockFromOtherStripes() {
+        StripedInventory inventory = new StripedInventory(10, 4);
+
+        assertThat(inventory.decrement(7)).isTrue();
+        assertThat(inventory.decrement(4)).isFalse();
+        assertThat(inventory.decrement(3)).isTrue();
+
+        assertThat(inventory.quantityOnHand()).isZero();
+        assertThat(inventory.drain()).isEqualTo(-10);
+        assertThat(inventory.drain()).isZero();
+    }
+
+    @Test
+    void undrainedChangeIsDrainedAgain() {
+        StripedInventory inventory = new StripedInventory(0, 2);
+        inventory.increment(5);
+
+        inventory.undrain(inventory.drain());
+        inventory.increment(1);
+
+        assertThat(inventory.drain()).isEqualTo(6);
+    }
+
+    @Test
+    void concurrentAdjustmentsNeverOversell() throws Exception {
+        int threads = 8;
+        int attemptsPerThread = 10_000;
+        StripedInventory inventory = new StripedInventory(20_000, 4);
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (thread == 0 && i % 10 == 0) {
+                        inventory.increment(1);
+                    } else if (inventory.decrement(1)) {
+                        sold.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long restocked = attemptsPerThread / 10;
+
+        assertThat(inventory.quantityOnHand()).isZero();
+        assertThat(sold.get()).isEqualTo(20_000 + restocked);
+        assertThat(inventory.drain()).isEqualTo(restocked - sold.get());
+    }
+}
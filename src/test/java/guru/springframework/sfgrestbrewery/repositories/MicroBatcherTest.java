@@ -0,0 +1,79 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MicroBatcherTest {
+
+    List<Collection<Integer>> batches;
+    SimpleMeterRegistry meterRegistry;
+    MicroBatcher<Integer, String> batcher;
+
+    @BeforeEach
+    void setUp() {
+        batches = new ArrayList<>();
+        meterRegistry = new SimpleMeterRegistry();
+        batcher = new MicroBatcher<>("test", this::load, value -> Integer.valueOf(value.substring(5)),
+                                     Duration.ofMillis(20), 3, meterRegistry);
+    }
+
+    @Test
+    void lookupsWithinWindowShareOneQuery() {
+        List<String> results = Flux.merge(batcher.load(1), batcher.load(2), batcher.load(1))
+                                   .collectList()
+                                   .block(Duration.ofSeconds(1));
+
+        assertThat(results).containsExactlyInAnyOrder("beer-1", "beer-2", "beer-1");
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactly(1, 2);
+        assertThat(meterRegistry.get("beer.lookup.batch.size").summary().max()).isEqualTo(2);
+    }
+
+    @Test
+    void fullBatchIsDispatchedWithoutWaiting() {
+        Flux.merge(batcher.load(1), batcher.load(2), batcher.load(3), batcher.load(4))
+            .collectList()
+            .block(Duration.ofSeconds(1));
+
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void fullBatchDoesNotShortenTheNextWindow() throws InterruptedException {
+        Duration window = Duration.ofMillis(200);
+        batcher = new MicroBatcher<>("test", this::load, value -> Integer.valueOf(value.substring(5)), window, 3, meterRegistry);
+
+        Flux.merge(batcher.load(1), batcher.load(2), batcher.load(3))
+            .blockLast(Duration.ofSeconds(1));
+        Thread.sleep(window.toMillis() / 2);
+
+        long start = System.nanoTime();
+        batcher.load(4).block(Duration.ofSeconds(1));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(window);
+    }
+
+    @Test
+    void missingKeyCompletesEmpty() {
+        assertThat(batcher.load(-1).block(Duration.ofSeconds(1))).isNull();
+    }
+
+    private Flux<String> load(Collection<Integer> keys) {
+        batches.add(new ArrayList<>(keys));
+
+        return Flux.fromIterable(keys)
+                   .filter(key -> key > 0)
+                   .map(key -> "beer-" + key);
+    }
+}
@@ -0,0 +1,75 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapperImpl;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class BeerNameIndexTest {
+
+    BeerNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BeerNameIndex(mock(R2dbcEntityTemplate.class), new BeerMapperImpl(), new SimpleMeterRegistry());
+
+        index.beerCreated(beer(1, "Pinball Porter"));
+        index.beerCreated(beer(2, "PBS Porter"));
+        index.beerCreated(beer(3, "Porter"));
+        index.beerCreated(beer(4, "Pac-Man"));
+        index.beerCreated(beer(5, "Double Barrel Hunahpu's"));
+        index.beerCreated(beer(6, "Brauerei Kölsch"));
+    }
+
+    @Test
+    void wordPrefixesAreRanked() {
+        assertThat(names(index.search("port", 10))).containsExactly("Porter", "PBS Porter", "Pinball Porter");
+        assertThat(names(index.search("P", 2))).containsExactly("Porter", "Pac-Man");
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        assertThat(names(index.search("pin port", 10))).containsExactly("Pinball Porter");
+        assertThat(index.search("pin lager", 10)).isEmpty();
+    }
+
+    @Test
+    void caseAccentsAndPunctuationAreIgnored() {
+        assertThat(names(index.search("KOLS", 10))).containsExactly("Brauerei Kölsch");
+        assertThat(names(index.search("pacm", 10))).containsExactly("Pac-Man");
+        assertThat(names(index.search("hunahpus", 10))).containsExactly("Double Barrel Hunahpu's");
+        assertThat(index.search("--", 10)).isEmpty();
+    }
+
+    @Test
+    void writesAreReflected() {
+        index.beerUpdated(beer(3, "Porter"), beer(3, "Stout"));
+        index.beerDeleted(beer(2, "PBS Porter"));
+        index.beersDeleted(List.of(1, 99));
+
+        assertThat(index.search("port", 10)).isEmpty();
+        assertThat(names(index.search("sto", 10))).containsExactly("Stout");
+    }
+
+    private List<String> names(List<BeerDto> beers) {
+        return beers.stream()
+                    .map(BeerDto::getBeerName)
+                    .collect(Collectors.toList());
+    }
+
+    private Beer beer(Integer id, String beerName) {
+        return Beer.builder()
+                   .id(id)
+                   .beerName(beerName)
+                   .build();
+    }
+}
@@ -0,0 +1,210 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.sql.Functions;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * Renders every query shape the beer service issues with the same statement mapper the template uses, runs it
+ * through {@code EXPLAIN} and fails if the plan falls back to a table scan or does not read the expected index.
+ */
+@SpringBootTest
+public class BeerQueryPlanIT {
+
+    // index names as H2 reports them; the primary key index name is generated
+    private static final String PRIMARY_KEY = "PUBLIC.PRIMARY_KEY";
+    private static final String UPC_INDEX = "PUBLIC.UX_BEER_UPC";
+    private static final String NAME_STYLE_INDEX = "PUBLIC.IX_BEER_NAME_STYLE_ID";
+    private static final String STYLE_INDEX = "PUBLIC.IX_BEER_STYLE_ID";
+    private static final String NAME_INDEX = "PUBLIC.IX_BEER_NAME_ID";
+    private static final String PRICE_INDEX = "PUBLIC.IX_BEER_PRICE_ID";
+    private static final String PRICE_DESC_INDEX = "PUBLIC.IX_BEER_PRICE_DESC_ID";
+    private static final String CREATED_DESC_INDEX = "PUBLIC.IX_BEER_CREATED_DESC_ID";
+    private static final String QUANTITY_DESC_INDEX = "PUBLIC.IX_BEER_QUANTITY_DESC_ID";
+    private static final String STYLE_NAME_INDEX = "PUBLIC.IX_BEER_STYLE_NAME_ID";
+    private static final String STYLE_PRICE_INDEX = "PUBLIC.IX_BEER_STYLE_PRICE_ID";
+    private static final String STYLE_PRICE_DESC_INDEX = "PUBLIC.IX_BEER_STYLE_PRICE_DESC_ID";
+    private static final String STYLE_CREATED_DESC_INDEX = "PUBLIC.IX_BEER_STYLE_CREATED_DESC_ID";
+
+    private static final BeerFilter NO_FILTER = new BeerFilter(null, null);
+    private static final BeerFilter BY_NAME = new BeerFilter("Mango Bobs", null);
+    private static final BeerFilter BY_STYLE = new BeerFilter(null, BeerStyleEnum.ALE);
+    private static final BeerFilter BY_NAME_AND_STYLE = new BeerFilter("Mango Bobs", BeerStyleEnum.ALE);
+    private static final BeerFilter BY_PRICE = new BeerFilter(null, null, new BigDecimal("10"), new BigDecimal("15"), false);
+    private static final BeerFilter BY_STYLE_AND_PRICE = new BeerFilter(null, BeerStyleEnum.ALE, new BigDecimal("10"), null, false);
+    private static final BeerFilter IN_STOCK = new BeerFilter(null, null, null, null, true);
+
+    @Autowired
+    R2dbcEntityTemplate template;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    static Stream<Arguments> selects() {
+        return Stream.of(arguments("page", BeerQueries.page(NO_FILTER, PageRequest.of(2, 25)), PRIMARY_KEY),
+                         arguments("page by name", BeerQueries.page(BY_NAME, PageRequest.of(0, 25)), NAME_INDEX),
+                         arguments("page by style", BeerQueries.page(BY_STYLE, PageRequest.of(0, 25)), STYLE_INDEX),
+                         arguments("page by name and style", BeerQueries.page(BY_NAME_AND_STYLE, PageRequest.of(0, 25)), NAME_STYLE_INDEX),
+                         arguments("keyset page", BeerQueries.pageAfter(NO_FILTER, 10, 25), PRIMARY_KEY),
+                         arguments("keyset page by name", BeerQueries.pageAfter(BY_NAME, 10, 25), NAME_INDEX),
+                         arguments("keyset page by style", BeerQueries.pageAfter(BY_STYLE, 10, 25), STYLE_INDEX),
+                         arguments("keyset page by name and style", BeerQueries.pageAfter(BY_NAME_AND_STYLE, 10, 25), NAME_STYLE_INDEX),
+                         arguments("stream by style", BeerQueries.all(BY_STYLE), STYLE_INDEX),
+                         arguments("by id", query(where("id").is(1)), PRIMARY_KEY),
+                         arguments("by ids", query(where("id").in(1, 2, 3)), PRIMARY_KEY),
+                         arguments("by upc", query(where("upc").is(BeerLoader.BEER_1_UPC)), UPC_INDEX),
+                         arguments("by upcs", query(where("upc").in(BeerLoader.BEER_1_UPC, BeerLoader.BEER_2_UPC)), UPC_INDEX));
+    }
+
+    /**
+     * Every whitelisted sort must also be read in index order, without sorting the result.
+     */
+    static Stream<Arguments> sortedSelects() {
+        return Stream.of(arguments("page sorted by name", BeerQueries.page(NO_FILTER, sorted(Sort.Order.asc("beerName"))), NAME_INDEX),
+                         arguments("page by price", BeerQueries.page(NO_FILTER, sorted(Sort.Order.asc("price"))), PRICE_INDEX),
+                         arguments("page by price desc", BeerQueries.page(NO_FILTER, sorted(Sort.Order.desc("price"))), PRICE_DESC_INDEX),
+                         arguments("page by created desc", BeerQueries.page(NO_FILTER, sorted(Sort.Order.desc("createdDate"))), CREATED_DESC_INDEX),
+                         arguments("page by stock desc", BeerQueries.page(NO_FILTER, sorted(Sort.Order.desc("quantityOnHand"))), QUANTITY_DESC_INDEX),
+                         arguments("style page by name", BeerQueries.page(BY_STYLE, sorted(Sort.Order.asc("beerName"))), STYLE_NAME_INDEX),
+                         arguments("style page by price", BeerQueries.page(BY_STYLE, sorted(Sort.Order.asc("price"))), STYLE_PRICE_INDEX),
+                         arguments("style page by price desc", BeerQueries.page(BY_STYLE, sorted(Sort.Order.desc("price"))), STYLE_PRICE_DESC_INDEX),
+                         arguments("style page by created desc", BeerQueries.page(BY_STYLE, sorted(Sort.Order.desc("createdDate"))), STYLE_CREATED_DESC_INDEX),
+                         arguments("price range page", BeerQueries.page(BY_PRICE, PageRequest.of(0, 25)), PRICE_INDEX),
+                         arguments("price range page desc", BeerQueries.page(BY_PRICE, sorted(Sort.Order.desc("price"))), PRICE_DESC_INDEX),
+                         arguments("style price range page", BeerQueries.page(BY_STYLE_AND_PRICE, PageRequest.of(0, 25)), STYLE_PRICE_INDEX),
+                         arguments("in stock page", BeerQueries.page(IN_STOCK, PageRequest.of(0, 25)), QUANTITY_DESC_INDEX));
+    }
+
+    static Stream<Arguments> counts() {
+        return Stream.of(arguments("count by name", BeerQueries.count(BY_NAME), NAME_INDEX),
+                         arguments("count by style", BeerQueries.count(BY_STYLE), STYLE_INDEX),
+                         arguments("count by name and style", BeerQueries.count(BY_NAME_AND_STYLE), NAME_STYLE_INDEX),
+                         arguments("count by price range", BeerQueries.count(BY_PRICE), PRICE_INDEX),
+                         arguments("count by style and price range", BeerQueries.count(BY_STYLE_AND_PRICE), STYLE_PRICE_INDEX),
+                         arguments("count in stock", BeerQueries.count(IN_STOCK), QUANTITY_DESC_INDEX));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("selects")
+    void selectUsesIndex(String name, Query query, String index) {
+        StatementMapper.SelectSpec spec = statementMapper().createSelect(tableName())
+                                                           .doWithTable((table, select) -> select.withProjection(table.asterisk()));
+
+        assertIndexed(statementMapper().getMappedObject(render(spec, query)), index);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("sortedSelects")
+    void sortedSelectReadsIndexInOrder(String name, Query query, String index) {
+        StatementMapper.SelectSpec spec = statementMapper().createSelect(tableName())
+                                                           .doWithTable((table, select) -> select.withProjection(table.asterisk()));
+
+        assertThat(assertIndexed(statementMapper().getMappedObject(render(spec, query)), index)).anyMatch(line -> line.contains("/* index sorted */"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("counts")
+    void countUsesIndex(String name, Query query, String index) {
+        StatementMapper.SelectSpec spec = statementMapper().createSelect(tableName())
+                                                           .doWithTable((table, select) -> select.withProjection(Functions.count(table.column("id"))));
+
+        assertIndexed(statementMapper().getMappedObject(render(spec, query)), index);
+    }
+
+    /**
+     * Mirrors how {@link R2dbcEntityTemplate} turns a {@link Query} into a select.
+     */
+    private StatementMapper.SelectSpec render(StatementMapper.SelectSpec spec, Query query) {
+        if (query.getLimit() > 0) {
+            spec = spec.limit(query.getLimit());
+        }
+
+        if (query.getOffset() > 0) {
+            spec = spec.offset(query.getOffset());
+        }
+
+        if (query.isSorted()) {
+            spec = spec.withSort(query.getSort());
+        }
+
+        return query.getCriteria()
+                    .map(spec::withCriteria)
+                    .orElse(spec);
+    }
+
+    private static PageRequest sorted(Sort.Order order) {
+        return PageRequest.of(1, 25, Sort.by(order));
+    }
+
+    private List<String> assertIndexed(PreparedOperation<?> operation, String index) {
+        List<String> plan = databaseClient.sql(explain(operation))
+                                          .map(row -> row.get(0, String.class))
+                                          .all()
+                                          .collectList()
+                                          .block();
+
+        assertThat(plan).as("plan for %s", operation.toQuery())
+                        .isNotEmpty()
+                        .noneMatch(line -> line.contains("tableScan"))
+                        .anyMatch(line -> line.contains("/* " + index));
+
+        return plan;
+    }
+
+    private PreparedOperation<?> explain(PreparedOperation<?> operation) {
+        return new PreparedOperation<Object>() {
+            @Override
+            public Object getSource() {
+                return operation.getSource();
+            }
+
+            @Override
+            public void bindTo(BindTarget target) {
+                operation.bindTo(target);
+            }
+
+            @Override
+            public String toQuery() {
+                return "EXPLAIN " + operation.toQuery();
+            }
+        };
+    }
+
+    private StatementMapper statementMapper() {
+        return template.getDataAccessStrategy()
+                       .getStatementMapper()
+                       .forType(Beer.class);
+    }
+
+    private SqlIdentifier tableName() {
+        return template.getConverter()
+                       .getMappingContext()
+                       .getRequiredPersistentEntity(Beer.class)
+                       .getTableName();
+    }
+}
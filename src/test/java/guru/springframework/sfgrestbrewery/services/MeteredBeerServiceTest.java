@@ -0,0 +1,93 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class MeteredBeerServiceTest {
+
+    BeerServiceImpl beerServiceImpl;
+    SimpleMeterRegistry meterRegistry;
+    MeteredBeerService beerService;
+
+    @BeforeEach
+    void setUp() {
+        beerServiceImpl = mock(BeerServiceImpl.class);
+        meterRegistry = new SimpleMeterRegistry();
+        beerService = new MeteredBeerService(beerServiceImpl, meterRegistry);
+    }
+
+    @Test
+    void foundAndNotFoundAreTaggedSeparately() {
+        given(beerServiceImpl.getById(1, false)).willReturn(Mono.just(BeerDto.builder().id(1).build()));
+        given(beerServiceImpl.getById(2, false)).willReturn(Mono.empty());
+
+        beerService.getById(1, false).block();
+        beerService.getById(2, false).block();
+        beerService.getById(2, false).block();
+
+        assertThat(count("getById", MeteredBeerService.FOUND)).isEqualTo(1);
+        assertThat(count("getById", MeteredBeerService.NOT_FOUND)).isEqualTo(2);
+    }
+
+    @Test
+    void downstreamFailureAfterEmptyIsStillNotFound() {
+        given(beerServiceImpl.getById(2, false)).willReturn(Mono.empty());
+
+        Mono<BeerDto> beer = beerService.getById(2, false)
+                                        .defaultIfEmpty(BeerDto.builder().build())
+                                        .doOnNext(beerDto -> {
+                                            throw new IllegalStateException();
+                                        });
+
+        assertThatThrownBy(beer::block).isInstanceOf(IllegalStateException.class);
+
+        assertThat(count("getById", MeteredBeerService.NOT_FOUND)).isEqualTo(1);
+        assertThat(meterRegistry.find(MeteredBeerService.BEER_SERVICE).tag("outcome", MeteredBeerService.CANCELLED).timer()).isNull();
+    }
+
+    @Test
+    void completedDeleteIsSuccess() {
+        given(beerServiceImpl.reactiveDeleteById(1)).willReturn(Mono.empty());
+
+        beerService.reactiveDeleteById(1).block();
+
+        assertThat(count("deleteBeerById", MeteredBeerService.SUCCESS)).isEqualTo(1);
+    }
+
+    @Test
+    void errorsAreClassified() {
+        given(beerServiceImpl.saveNewBeer(null)).willReturn(Mono.error(new DataIntegrityViolationException("upc")));
+
+        assertThatThrownBy(() -> beerService.saveNewBeer(null).block()).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(count("saveNewBeer", MeteredBeerService.CONFLICT)).isEqualTo(1);
+    }
+
+    @Test
+    void nothingIsRecordedUntilSubscribed() {
+        given(beerServiceImpl.getById(1, false)).willReturn(Mono.just(BeerDto.builder().id(1).build()));
+
+        Mono<BeerDto> beer = beerService.getById(1, false);
+
+        assertThat(meterRegistry.find(MeteredBeerService.BEER_SERVICE).timers()).isEmpty();
+        beer.block();
+        assertThat(count("getById", MeteredBeerService.FOUND)).isEqualTo(1);
+    }
+
+    private long count(String operation, String outcome) {
+        return meterRegistry.get(MeteredBeerService.BEER_SERVICE)
+                            .tag("operation", operation)
+                            .tag("outcome", outcome)
+                            .timer()
+                            .count();
+    }
+}
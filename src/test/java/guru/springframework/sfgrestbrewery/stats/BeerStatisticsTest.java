@@ -0,0 +1,109 @@
+package guru.springframework.sfgrestbrewery.stats;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerCatalogStats;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class BeerStatisticsTest {
+
+    BeerStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new BeerStatistics(mock(DatabaseClient.class), new BeerStatisticsProperties());
+
+        statistics.beerCreated(beer(1, BeerStyleEnum.ALE, "10.00", 5));
+        statistics.beerCreated(beer(2, BeerStyleEnum.ALE, "12.00", 7));
+        statistics.beerCreated(beer(3, BeerStyleEnum.ALE, "12.00", null));
+        statistics.beerCreated(beer(4, BeerStyleEnum.IPA, null, 1));
+    }
+
+    @Test
+    void aggregatesPerStyleAndInTotal() {
+        BeerCatalogStats stats = statistics.snapshot();
+
+        assertThat(stats.getCount()).isEqualTo(4);
+        assertThat(stats.getQuantityOnHand()).isEqualTo(13);
+        assertThat(stats.getStyles()).extracting(BeerStyleStats::getBeerStyle)
+                                     .containsExactly(BeerStyleEnum.ALE, BeerStyleEnum.IPA);
+        assertThat(stats.getStyles().get(0)).isEqualTo(new BeerStyleStats(BeerStyleEnum.ALE, 3, 12, new BigDecimal("11.33"),
+                                                                          new BigDecimal("10.00"), new BigDecimal("12.00")));
+        assertThat(stats.getStyles().get(1).getAveragePrice()).isNull();
+    }
+
+    @Test
+    void removingAnExtremePriceMovesMinAndMax() {
+        statistics.beerDeleted(beer(1, BeerStyleEnum.ALE, "10.00", 5));
+        statistics.beerUpdated(beer(2, BeerStyleEnum.ALE, "12.00", 7), beer(2, BeerStyleEnum.ALE, "8.00", 7));
+
+        BeerStyleStats ale = statistics.snapshot().getStyles().get(0);
+
+        assertThat(ale.getCount()).isEqualTo(2);
+        assertThat(ale.getQuantityOnHand()).isEqualTo(7);
+        assertThat(ale.getMinPrice()).isEqualByComparingTo("8.00");
+        assertThat(ale.getMaxPrice()).isEqualByComparingTo("12.00");
+    }
+
+    @Test
+    void styleChangeMovesStock() {
+        statistics.beerUpdated(beer(2, BeerStyleEnum.ALE, "12.00", 7), beer(2, BeerStyleEnum.IPA, "12.00", 7));
+        statistics.beerDeleted(beer(4, BeerStyleEnum.IPA, null, 1));
+
+        BeerCatalogStats stats = statistics.snapshot();
+
+        assertThat(stats.getStyles()).extracting(BeerStyleStats::getCount).containsExactly(2L, 1L);
+        assertThat(stats.getStyles()).extracting(BeerStyleStats::getQuantityOnHand).containsExactly(5L, 7L);
+    }
+
+    @Test
+    void styleChangeMovesKnownStockWhenPreviousStateHasNone() {
+        statistics.beerUpdated(beer(2, BeerStyleEnum.ALE, "12.00", null), beer(2, BeerStyleEnum.IPA, "12.00", null));
+
+        BeerCatalogStats stats = statistics.snapshot();
+
+        assertThat(stats.getStyles()).extracting(BeerStyleStats::getQuantityOnHand).containsExactly(5L, 8L);
+    }
+
+    @Test
+    void stockChangesMoveTheirBeersStyle() {
+        statistics.stockChanged(Map.of(1, -2L, 4, 10L, 99, 3L));
+
+        BeerCatalogStats stats = statistics.snapshot();
+
+        assertThat(stats.getQuantityOnHand()).isEqualTo(21);
+        assertThat(stats.getStyles()).extracting(BeerStyleStats::getQuantityOnHand).containsExactly(10L, 11L);
+    }
+
+    @Test
+    void bulkDeleteRemovesTrackedBeersExactly() {
+        statistics.beersDeleted(List.of(2, 4, 99));
+
+        BeerCatalogStats stats = statistics.snapshot();
+
+        assertThat(stats.getCount()).isEqualTo(2);
+        assertThat(stats.getQuantityOnHand()).isEqualTo(5);
+        assertThat(stats.getStyles()).extracting(BeerStyleStats::getBeerStyle).containsExactly(BeerStyleEnum.ALE);
+        assertThat(stats.getStyles().get(0).getMaxPrice()).isEqualByComparingTo("12.00");
+        assertThat(stats.getStyles().get(0).getMinPrice()).isEqualByComparingTo("10.00");
+    }
+
+    private Beer beer(Integer id, BeerStyleEnum beerStyle, String price, Integer quantityOnHand) {
+        return Beer.builder()
+                   .id(id)
+                   .beerStyle(beerStyle)
+                   .price(price == null ? null : new BigDecimal(price))
+                   .quantityOnHand(quantityOnHand)
+                   .build();
+    }
+}
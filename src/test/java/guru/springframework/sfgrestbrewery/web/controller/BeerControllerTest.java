@@ -1,5 +1,6 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogGeneration;
 import guru.springframework.sfgrestbrewery.services.BeerService;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
@@ -8,6 +9,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
@@ -15,11 +18,13 @@ import reactor.core.publisher.Mono;
 import java.util.List;
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 
 @WebFluxTest(BeerController.class)
+@Import(BeerCatalogGeneration.class)
 public class BeerControllerTest {
 
     @Autowired
@@ -37,9 +42,11 @@ public class BeerControllerTest {
     @BeforeEach
     void setUp() {
         validBeer = BeerDto.builder()
+                           .id(1)
                            .beerName("elo")
                            .beerStyle("Apa")
                            .upc(BEER_UPC)
+                           .version(3L)
                            .build();
 
     }
@@ -58,6 +65,34 @@ public class BeerControllerTest {
                      .value(beerDto -> beerDto.getBeerName(), equalTo(validBeer.getBeerName()));
     }
 
+    @Test
+    void getBeerByIdNotModified() {
+        given(beerService.getById(any(), any())).willReturn(Mono.just(validBeer));
+
+        webTestClient.get()
+                     .uri("/api/v1/beer/1")
+                     .accept(MediaType.APPLICATION_JSON)
+                     .exchange()
+                     .expectStatus().isOk()
+                     .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                     .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        webTestClient.get()
+                     .uri("/api/v1/beer/1")
+                     .accept(MediaType.APPLICATION_JSON)
+                     .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                     .exchange()
+                     .expectStatus().isNotModified()
+                     .expectBody().isEmpty();
+
+        webTestClient.get()
+                     .uri("/api/v1/beer/1")
+                     .accept(MediaType.APPLICATION_JSON)
+                     .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                     .exchange()
+                     .expectStatus().isOk();
+    }
+
     @Test
     void getBeerByUPC() {
         given(beerService.getByUpc(any())).willReturn(Mono.just(validBeer));
@@ -76,7 +111,7 @@ public class BeerControllerTest {
 
         BeerPagedList beerList = new BeerPagedList(List.of(validBeer));
 
-        given(beerService.listBeers(any(),any(),any(),any())).willReturn(Mono.just(beerList));
+        given(beerService.listBeers(any(),any(),any())).willReturn(Mono.just(beerList));
 
         webTestClient.get()
                      .uri("/api/v1/beer")
@@ -86,4 +121,51 @@ public class BeerControllerTest {
                      .expectBody(BeerPagedList.class)
                      .value( beerPagedList -> beerPagedList.getTotalElements(), equalTo(1l));
     }
+
+    @Test
+    void listBeersSortedByStockIsNotTagged() {
+        given(beerService.listBeers(any(),any(),any())).willReturn(Mono.just(new BeerPagedList(List.of(validBeer))));
+
+        webTestClient.get()
+                     .uri("/api/v1/beer?sort=quantityOnHand,desc")
+                     .accept(MediaType.APPLICATION_JSON)
+                     .exchange()
+                     .expectStatus().isOk()
+                     .expectHeader().doesNotExist(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void saveNewBeerReturnsLocationOfSavedBeer() {
+        given(beerService.saveNewBeer(any())).willReturn(Mono.just(BeerDto.builder().id(42).build()));
+
+        webTestClient.post()
+                     .uri("/api/v1/beer")
+                     .contentType(MediaType.APPLICATION_JSON)
+                     .bodyValue(validBeer)
+                     .exchange()
+                     .expectStatus().isCreated()
+                     .expectHeader().value("Location", endsWith("/api/v1/beer/42"));
+    }
+
+    @Test
+    void updateBeerNotFound() {
+        given(beerService.updateBeer(any(), any())).willReturn(Mono.error(new NotFoundException()));
+
+        webTestClient.put()
+                     .uri("/api/v1/beer/99")
+                     .contentType(MediaType.APPLICATION_JSON)
+                     .bodyValue(validBeer)
+                     .exchange()
+                     .expectStatus().isNotFound();
+    }
+
+    @Test
+    void deleteBeerNotFound() {
+        given(beerService.reactiveDeleteById(any())).willReturn(Mono.error(new NotFoundException()));
+
+        webTestClient.delete()
+                     .uri("/api/v1/beer/99")
+                     .exchange()
+                     .expectStatus().isNotFound();
+    }
 }
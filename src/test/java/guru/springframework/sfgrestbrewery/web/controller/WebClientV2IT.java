@@ -1,24 +1,41 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
 import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
+import guru.springframework.sfgrestbrewery.config.CodecConfiguration;
+import guru.springframework.sfgrestbrewery.web.functional.BeerETags;
 import guru.springframework.sfgrestbrewery.web.functional.BeerHandlerV2;
 import guru.springframework.sfgrestbrewery.web.functional.BeerRouterConfiguration;
+import guru.springframework.sfgrestbrewery.web.model.BeerBulkDeleteResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerBulkResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerCatalogStats;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerLookupResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerPage;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleStats;
+import guru.springframework.sfgrestbrewery.web.model.InventoryAdjustment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.netty.http.client.HttpClient;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -60,6 +77,385 @@ public class WebClientV2IT {
         assertThat(countDownLatch.getCount()).isEqualTo(0);
     }
 
+    @Test
+    void listBeersWithCursor() {
+        BeerPagedList firstPage = webClient.get()
+                                           .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=10&after=")
+                                           .accept(MediaType.APPLICATION_JSON)
+                                           .retrieve()
+                                           .bodyToMono(BeerPagedList.class)
+                                           .block();
+
+        assertThat(firstPage.getContent()).hasSize(10);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        BeerPagedList secondPage = webClient.get()
+                                            .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=10&after=" + firstPage.getNextCursor())
+                                            .accept(MediaType.APPLICATION_JSON)
+                                            .retrieve()
+                                            .bodyToMono(BeerPagedList.class)
+                                            .block();
+
+        assertThat(secondPage.getContent()).isNotEmpty();
+        assertThat(secondPage.getContent().get(0).getId()).isGreaterThan(firstPage.getContent().get(9).getId());
+    }
+
+    @Test
+    void listBeersSortedWithinPriceRange() {
+        BeerPagedList page = webClient.get()
+                                      .uri(BeerRouterConfiguration.BEER_V2_URL + "?sort=price,desc&minPrice=20&maxPrice=80&pageSize=100")
+                                      .accept(MediaType.APPLICATION_JSON)
+                                      .retrieve()
+                                      .bodyToMono(BeerPagedList.class)
+                                      .block();
+
+        assertThat(page.getContent()).isNotEmpty()
+                                     .allMatch(beer -> beer.getPrice().compareTo(new BigDecimal("20")) >= 0
+                                             && beer.getPrice().compareTo(new BigDecimal("80")) <= 0);
+        assertThat(page.getContent()).extracting(BeerDto::getPrice)
+                                     .isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(page.getTotalElements()).isEqualTo(page.getContent().size());
+    }
+
+    @Test
+    void listBeersSortedByStockFollowStock() {
+        String location = webClient.post()
+                                   .uri(BeerRouterConfiguration.BEER_V2_URL)
+                                   .body(BodyInserters.fromValue(BeerDto.builder()
+                                                                        .beerName("Restocked Stout")
+                                                                        .beerStyle("STOUT")
+                                                                        .price(new BigDecimal("6.75"))
+                                                                        .upc("0083783375316")
+                                                                        .quantityOnHand(0)
+                                                                        .build()))
+                                   .retrieve()
+                                   .toBodilessEntity()
+                                   .block()
+                                   .getHeaders()
+                                   .getFirst(HttpHeaders.LOCATION);
+        Integer beerId = Integer.valueOf(location.substring(location.lastIndexOf('/') + 1));
+        String listUrl = BeerRouterConfiguration.BEER_V2_URL + "?sort=quantityOnHand,desc&pageSize=1";
+
+        BeerPagedList before = webClient.get()
+                                        .uri(listUrl)
+                                        .accept(MediaType.APPLICATION_JSON)
+                                        .retrieve()
+                                        .bodyToMono(BeerPagedList.class)
+                                        .block();
+
+        assertThat(before.getContent().get(0).getId()).isNotEqualTo(beerId);
+
+        // stock changes are not catalog writes, so nothing would evict a cached page
+        adjust(beerId, InventoryAdjustment.Type.INCREMENT, 1_000_000);
+
+        BeerPagedList after = webClient.get()
+                                       .uri(listUrl)
+                                       .accept(MediaType.APPLICATION_JSON)
+                                       .retrieve()
+                                       .bodyToMono(BeerPagedList.class)
+                                       .block();
+
+        assertThat(after.getContent().get(0).getId()).isEqualTo(beerId);
+    }
+
+    @Test
+    void listBeersInBinaryFormats() {
+        WebClient binaryClient = webClient.mutate()
+                                          .codecs(configurer -> {
+                                              configurer.customCodecs().register(new Jackson2CborDecoder());
+                                              configurer.customCodecs().register(new Jackson2CborEncoder());
+                                          })
+                                          .build();
+        BeerPagedList json = webClient.get()
+                                      .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=5")
+                                      .accept(MediaType.APPLICATION_JSON)
+                                      .retrieve()
+                                      .bodyToMono(BeerPagedList.class)
+                                      .block();
+
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_CBOR, CodecConfiguration.APPLICATION_SMILE)) {
+            ResponseEntity<BeerPagedList> binary = binaryClient.get()
+                                                               .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=5")
+                                                               .accept(mediaType)
+                                                               .retrieve()
+                                                               .toEntity(BeerPagedList.class)
+                                                               .block();
+
+            assertThat(binary.getHeaders().getContentType()).isEqualTo(mediaType);
+            assertThat(binary.getBody().getTotalElements()).isEqualTo(json.getTotalElements());
+            assertThat(binary.getBody().getContent()).isEqualTo(json.getContent());
+        }
+
+        BeerDto beer = binaryClient.get()
+                                   .uri("/api/v1/beer/" + json.getContent().get(0).getId())
+                                   .accept(MediaType.APPLICATION_CBOR)
+                                   .retrieve()
+                                   .bodyToMono(BeerDto.class)
+                                   .block();
+
+        assertThat(beer).isEqualTo(json.getContent().get(0));
+    }
+
+    @Test
+    void listBeersLean() {
+        BeerPagedList paged = webClient.get()
+                                       .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=5")
+                                       .accept(MediaType.APPLICATION_JSON)
+                                       .retrieve()
+                                       .bodyToMono(BeerPagedList.class)
+                                       .block();
+        String leanJson = webClient.get()
+                                   .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=5&envelope=lean")
+                                   .accept(MediaType.APPLICATION_JSON)
+                                   .retrieve()
+                                   .bodyToMono(String.class)
+                                   .block();
+
+        assertThat(leanJson).doesNotContain("pageable", "sort", "totalElements", "nextCursor");
+
+        for (MediaType mediaType : CodecConfiguration.MEDIA_TYPES) {
+            BeerPage lean = webClient.mutate()
+                                     .codecs(configurer -> configurer.customCodecs().register(new Jackson2CborDecoder()))
+                                     .build()
+                                     .get()
+                                     .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=5&envelope=lean")
+                                     .accept(mediaType)
+                                     .retrieve()
+                                     .bodyToMono(BeerPage.class)
+                                     .block();
+
+            assertThat(lean.getContent()).isEqualTo(paged.getContent());
+            assertThat(lean.getTotal()).isEqualTo(paged.getTotalElements());
+            assertThat(lean.getNextPage()).isEqualTo(1);
+            assertThat(lean.getNextCursor()).isNull();
+        }
+
+        BeerPage firstPage = webClient.get()
+                                      .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=5&envelope=lean&after=")
+                                      .accept(MediaType.APPLICATION_JSON)
+                                      .retrieve()
+                                      .bodyToMono(BeerPage.class)
+                                      .block();
+
+        assertThat(firstPage.getNextPage()).isNull();
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        BeerPage secondPage = webClient.get()
+                                       .uri(BeerRouterConfiguration.BEER_V2_URL + "?pageSize=5&envelope=lean&after=" + firstPage.getNextCursor())
+                                       .accept(MediaType.APPLICATION_JSON)
+                                       .retrieve()
+                                       .bodyToMono(BeerPage.class)
+                                       .block();
+
+        assertThat(secondPage.getContent().get(0).getId()).isGreaterThan(firstPage.getContent().get(4).getId());
+
+        assertThrows(WebClientResponseException.BadRequest.class, () -> {
+            webClient.get()
+                     .uri(BeerRouterConfiguration.BEER_V2_URL + "?envelope=compact")
+                     .accept(MediaType.APPLICATION_JSON)
+                     .retrieve()
+                     .bodyToMono(BeerPage.class)
+                     .block();
+        });
+    }
+
+    @Test
+    void listBeersUnsupportedSort() {
+        assertThrows(WebClientResponseException.BadRequest.class, () -> {
+            webClient.get()
+                     .uri(BeerRouterConfiguration.BEER_V2_URL + "?sort=beerName&minPrice=10")
+                     .accept(MediaType.APPLICATION_JSON)
+                     .retrieve()
+                     .bodyToMono(BeerPagedList.class)
+                     .block();
+        });
+    }
+
+    @Test
+    void streamBeers() {
+        List<BeerDto> beers = webClient.get()
+                                       .uri(BeerRouterConfiguration.BEER_V2_STREAM + "?beerStyle=IPA")
+                                       .accept(MediaType.APPLICATION_NDJSON)
+                                       .retrieve()
+                                       .bodyToFlux(BeerDto.class)
+                                       .collectList()
+                                       .block();
+
+        assertThat(beers).isNotEmpty();
+        assertThat(beers).allMatch(beer -> beer.getBeerStyle().equals("IPA"));
+    }
+
+    @Test
+    void saveNewBeersBulk() {
+        Flux<BeerDto> beers = Flux.just(BeerDto.builder()
+                                               .beerName("Bulk One")
+                                               .beerStyle("IPA")
+                                               .upc("555000111")
+                                               .build(),
+                                        BeerDto.builder()
+                                               .upc("555000222")
+                                               .build(),
+                                        BeerDto.builder()
+                                               .beerName("Bulk Three")
+                                               .beerStyle("LAGER")
+                                               .upc("555000333")
+                                               .build());
+
+        List<BeerBulkResult> results = webClient.post()
+                                                .uri(BeerRouterConfiguration.BEER_V2_BULK)
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .accept(MediaType.APPLICATION_NDJSON)
+                                                .body(beers, BeerDto.class)
+                                                .retrieve()
+                                                .bodyToFlux(BeerBulkResult.class)
+                                                .collectList()
+                                                .block();
+
+        assertThat(results).extracting(BeerBulkResult::getStatus)
+                           .containsExactly(BeerBulkResult.Status.CREATED, BeerBulkResult.Status.INVALID, BeerBulkResult.Status.CREATED);
+        assertThat(results.get(0).getId()).isNotNull();
+    }
+
+    @Test
+    void saveNewBeersBulkReportsEachElement() {
+        Flux<BeerDto> beers = Flux.just(BeerDto.builder().beerName("Bulk Four").beerStyle("ALE").upc("0083783375320").build(),
+                                        BeerDto.builder().beerName("Bulk Five").beerStyle("MILKSHAKE").upc("0083783375321").build(),
+                                        BeerDto.builder().beerName("Bulk Six").beerStyle("ALE").upc("0083783375320").build(),
+                                        BeerDto.builder().beerName("Bulk Seven").beerStyle("ALE").upc(BeerLoader.BEER_7_UPC).build(),
+                                        BeerDto.builder().beerName("Bulk Eight").beerStyle("PORTER").upc("0083783375322").build());
+
+        List<BeerBulkResult> results = webClient.post()
+                                                .uri(BeerRouterConfiguration.BEER_V2_BULK)
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .accept(MediaType.APPLICATION_NDJSON)
+                                                .body(beers, BeerDto.class)
+                                                .retrieve()
+                                                .bodyToFlux(BeerBulkResult.class)
+                                                .collectList()
+                                                .block();
+
+        // the taken UPC fails the batch insert, which is then retried one element at a time
+        assertThat(results).extracting(BeerBulkResult::getStatus)
+                           .containsExactly(BeerBulkResult.Status.CREATED, BeerBulkResult.Status.INVALID, BeerBulkResult.Status.INVALID,
+                                            BeerBulkResult.Status.INVALID, BeerBulkResult.Status.CREATED);
+        assertThat(results.get(1).getErrors()).containsExactly("beerStyle : unknown beer style");
+        assertThat(results.get(2).getErrors()).containsExactly("upc : repeats an earlier element");
+        assertThat(results.get(3).getErrors()).containsExactly("upc : already in use");
+    }
+
+    @Test
+    void getBeersByIds() {
+        List<BeerLookupResult> results = webClient.get()
+                                                  .uri(BeerRouterConfiguration.BEER_V2_BATCH + "?ids=12,1777,10")
+                                                  .accept(MediaType.APPLICATION_JSON)
+                                                  .retrieve()
+                                                  .bodyToFlux(BeerLookupResult.class)
+                                                  .collectList()
+                                                  .block();
+
+        assertThat(results).extracting(BeerLookupResult::getKey)
+                           .containsExactly("12", "1777", "10");
+        assertThat(results).extracting(BeerLookupResult::isFound)
+                           .containsExactly(true, false, true);
+        assertThat(results.get(0).getBeer().getId()).isEqualTo(12);
+    }
+
+    @Test
+    void searchBeers() {
+        List<BeerDto> beers = webClient.get()
+                                       .uri(BeerRouterConfiguration.BEER_V2_SEARCH + "?q=porter&limit=5")
+                                       .accept(MediaType.APPLICATION_JSON)
+                                       .retrieve()
+                                       .bodyToFlux(BeerDto.class)
+                                       .collectList()
+                                       .block();
+
+        assertThat(beers).extracting(BeerDto::getBeerName)
+                         .contains("PBS Porter", "Pinball Porter");
+
+        WebClientResponseException badRequest = assertThrows(WebClientResponseException.class,
+                                                             () -> webClient.get()
+                                                                            .uri(BeerRouterConfiguration.BEER_V2_SEARCH + "?q=")
+                                                                            .accept(MediaType.APPLICATION_JSON)
+                                                                            .retrieve()
+                                                                            .toBodilessEntity()
+                                                                            .block());
+        assertThat(badRequest.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void statisticsFollowWrites() {
+        BeerCatalogStats before = statistics();
+
+        webClient.post()
+                 .uri(BeerRouterConfiguration.BEER_V2_URL)
+                 .body(BodyInserters.fromValue(BeerDto.builder()
+                                                      .beerName("Priciest Saison")
+                                                      .beerStyle("SAISON")
+                                                      .price(new BigDecimal("999.99"))
+                                                      .upc("0083783375312")
+                                                      .quantityOnHand(3)
+                                                      .build()))
+                 .retrieve()
+                 .toBodilessEntity()
+                 .block();
+
+        BeerCatalogStats after = statistics();
+        BeerStyleStats saison = after.getStyles()
+                                     .stream()
+                                     .filter(style -> style.getBeerStyle() == BeerStyleEnum.SAISON)
+                                     .findFirst()
+                                     .orElseThrow();
+
+        assertThat(after.getCount()).isEqualTo(before.getCount() + 1);
+        assertThat(after.getQuantityOnHand()).isEqualTo(before.getQuantityOnHand() + 3);
+        assertThat(saison.getMaxPrice()).isEqualByComparingTo("999.99");
+
+        BeerDto saved = webClient.get()
+                                 .uri(BeerRouterConfiguration.BEER_V2_UPC + "/0083783375312")
+                                 .accept(MediaType.APPLICATION_JSON)
+                                 .retrieve()
+                                 .bodyToMono(BeerDto.class)
+                                 .block();
+
+        // stock adjustments are reported by the inventory service, without reseeding
+        adjust(saved.getId(), InventoryAdjustment.Type.INCREMENT, 4);
+        assertThat(statistics().getQuantityOnHand()).isEqualTo(before.getQuantityOnHand() + 7);
+
+        webClient.delete()
+                 .uri(BeerRouterConfiguration.BEER_V2_URL + "/" + saved.getId())
+                 .retrieve()
+                 .toBodilessEntity()
+                 .block();
+
+        // the delete knows the row it removed, so its stock comes off straight away
+        BeerCatalogStats deleted = statistics();
+
+        assertThat(deleted.getCount()).isEqualTo(before.getCount());
+        assertThat(deleted.getQuantityOnHand()).isEqualTo(before.getQuantityOnHand());
+    }
+
+    private BeerCatalogStats statistics() {
+        return webClient.get()
+                        .uri(BeerRouterConfiguration.BEER_V2_STATS)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .bodyToMono(BeerCatalogStats.class)
+                        .block();
+    }
+
+    @Test
+    void listBeersInvalidCursor() {
+        assertThrows(WebClientResponseException.BadRequest.class, () -> {
+            webClient.get()
+                     .uri(BeerRouterConfiguration.BEER_V2_URL + "?after=bogus")
+                     .accept(MediaType.APPLICATION_JSON)
+                     .retrieve()
+                     .bodyToMono(BeerPagedList.class)
+                     .block();
+        });
+    }
+
     @Test
     void getBeerByIdNotFound() throws InterruptedException {
         CountDownLatch countDownLatch = new CountDownLatch(1);
@@ -251,6 +647,199 @@ public class WebClientV2IT {
         assertThat(countDownLatch.getCount()).isEqualTo(0);
     }
 
+    @Test
+    void updateBeerIfMatch() {
+        BeerDto newBeer = BeerDto.builder()
+                                 .beerName("Conditional Ale")
+                                 .beerStyle("ALE")
+                                 .price(new BigDecimal("7.50"))
+                                 .upc("0083783375213")
+                                 .version(42L)
+                                 .build();
+
+        webClient.post()
+                 .uri(BeerRouterConfiguration.BEER_V2_URL)
+                 .body(BodyInserters.fromValue(newBeer))
+                 .retrieve()
+                 .toBodilessEntity()
+                 .block();
+
+        BeerDto saved = webClient.get()
+                                 .uri(BeerRouterConfiguration.BEER_V2_UPC + "/" + newBeer.getUpc())
+                                 .accept(MediaType.APPLICATION_JSON)
+                                 .retrieve()
+                                 .bodyToMono(BeerDto.class)
+                                 .block();
+
+        // the version a client sends on create is ignored
+        assertThat(versionOf(saved)).isZero();
+
+        newBeer.setBeerName("Conditional Ale Reloaded");
+        ResponseEntity<Void> updated = updateIfMatch(saved.getId(), BeerETags.of(saved.getVersion()), newBeer).block();
+
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(updated.getHeaders().getETag()).isEqualTo(BeerETags.of(versionOf(saved) + 1));
+
+        // a second editor still holding the original version must not overwrite the first
+        WebClientResponseException conflict = assertThrows(WebClientResponseException.class,
+                                                           () -> updateIfMatch(saved.getId(), BeerETags.of(saved.getVersion()), newBeer).block());
+        assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+        WebClientResponseException notFound = assertThrows(WebClientResponseException.class,
+                                                           () -> updateIfMatch(999_999, BeerETags.of(0L), newBeer).block());
+        assertThat(notFound.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        BeerDto reloaded = webClient.get()
+                                    .uri(BeerRouterConfiguration.BEER_V2_URL + "/" + saved.getId())
+                                    .accept(MediaType.APPLICATION_JSON)
+                                    .retrieve()
+                                    .bodyToMono(BeerDto.class)
+                                    .block();
+
+        assertThat(reloaded.getBeerName()).isEqualTo("Conditional Ale Reloaded");
+        assertThat(BeerETags.of(reloaded.getVersion())).isEqualTo(updated.getHeaders().getETag());
+    }
+
+    @Test
+    void conditionalGetsFollowWrites() {
+        BeerDto newBeer = BeerDto.builder()
+                                 .beerName("Conditional Porter")
+                                 .beerStyle("PORTER")
+                                 .price(new BigDecimal("8.25"))
+                                 .upc("0083783375214")
+                                 .build();
+
+        webClient.post()
+                 .uri(BeerRouterConfiguration.BEER_V2_URL)
+                 .body(BodyInserters.fromValue(newBeer))
+                 .retrieve()
+                 .toBodilessEntity()
+                 .block();
+
+        ResponseEntity<BeerDto> byUpc = getIfNoneMatch(BeerRouterConfiguration.BEER_V2_UPC + "/" + newBeer.getUpc(), null, BeerDto.class);
+        String beerUrl = BeerRouterConfiguration.BEER_V2_URL + "/" + byUpc.getBody().getId();
+        String listUrl = BeerRouterConfiguration.BEER_V2_URL + "?beerStyle=PORTER";
+
+        assertThat(getIfNoneMatch(BeerRouterConfiguration.BEER_V2_UPC + "/" + newBeer.getUpc(), byUpc.getHeaders().getETag(), BeerDto.class)
+                           .getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        ResponseEntity<BeerDto> beer = getIfNoneMatch(beerUrl, null, BeerDto.class);
+        ResponseEntity<BeerPagedList> list = getIfNoneMatch(listUrl, null, BeerPagedList.class);
+
+        assertThat(beer.getHeaders().getETag()).isEqualTo(BeerETags.of(beer.getBody().getVersion()));
+        assertThat(beer.getHeaders().getCacheControl()).isEqualTo("no-cache");
+
+        ResponseEntity<BeerDto> notModified = getIfNoneMatch(beerUrl, beer.getHeaders().getETag(), BeerDto.class);
+
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+        assertThat(getIfNoneMatch(listUrl, list.getHeaders().getETag(), BeerPagedList.class).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        newBeer.setPrice(new BigDecimal("8.75"));
+        updateIfMatch(beer.getBody().getId(), beer.getHeaders().getETag(), newBeer).block();
+
+        ResponseEntity<BeerDto> changed = getIfNoneMatch(beerUrl, beer.getHeaders().getETag(), BeerDto.class);
+        ResponseEntity<BeerPagedList> changedList = getIfNoneMatch(listUrl, list.getHeaders().getETag(), BeerPagedList.class);
+
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getBody().getPrice()).isEqualByComparingTo("8.75");
+        assertThat(changedList.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changedList.getHeaders().getETag()).isNotEqualTo(list.getHeaders().getETag());
+
+        // stock changes do not move the catalog generation
+        assertThat(getIfNoneMatch(BeerRouterConfiguration.BEER_V2_URL + "?sort=quantityOnHand,desc", null, BeerPagedList.class)
+                           .getHeaders().getETag()).isNull();
+    }
+
+    private <T> ResponseEntity<T> getIfNoneMatch(String uri, String eTag, Class<T> type) {
+        return webClient.get()
+                        .uri(uri)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .headers(headers -> {
+                            if (eTag != null) {
+                                headers.setIfNoneMatch(eTag);
+                            }
+                        })
+                        .retrieve()
+                        .toEntity(type)
+                        .block();
+    }
+
+    private Mono<ResponseEntity<Void>> updateIfMatch(Integer beerId, String eTag, BeerDto beerDto) {
+        return webClient.put()
+                        .uri(BeerRouterConfiguration.BEER_V2_URL + "/" + beerId)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .body(BodyInserters.fromValue(beerDto))
+                        .retrieve()
+                        .toBodilessEntity();
+    }
+
+    private long versionOf(BeerDto beerDto) {
+        return beerDto.getVersion() == null ? 0 : beerDto.getVersion();
+    }
+
+    @Test
+    void adjustInventory() {
+        BeerDto newBeer = BeerDto.builder()
+                                 .beerName("Stock Ale")
+                                 .beerStyle("ALE")
+                                 .price(new BigDecimal("4.25"))
+                                 .upc("0083783375305")
+                                 .quantityOnHand(5)
+                                 .build();
+
+        String location = webClient.post()
+                                   .uri(BeerRouterConfiguration.BEER_V2_URL)
+                                   .body(BodyInserters.fromValue(newBeer))
+                                   .retrieve()
+                                   .toBodilessEntity()
+                                   .block()
+                                   .getHeaders()
+                                   .getFirst(HttpHeaders.LOCATION);
+        Integer beerId = Integer.valueOf(location.substring(location.lastIndexOf('/') + 1));
+
+        assertThat(adjust(beerId, InventoryAdjustment.Type.INCREMENT, 3).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(adjust(beerId, InventoryAdjustment.Type.RESERVE, 6).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(adjust(beerId, InventoryAdjustment.Type.RELEASE, 1).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        // 3 on hand: a larger decrement is refused and changes nothing
+        WebClientResponseException conflict = assertThrows(WebClientResponseException.class,
+                                                           () -> adjust(beerId, InventoryAdjustment.Type.DECREMENT, 4));
+        assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(adjust(beerId, InventoryAdjustment.Type.DECREMENT, 3).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        WebClientResponseException notFound = assertThrows(WebClientResponseException.class,
+                                                           () -> adjust(999_999, InventoryAdjustment.Type.INCREMENT, 1));
+        assertThat(notFound.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        WebClientResponseException badRequest = assertThrows(WebClientResponseException.class,
+                                                             () -> adjust(beerId, InventoryAdjustment.Type.INCREMENT, 0));
+        assertThat(badRequest.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        BeerDto reloaded = webClient.get()
+                                    .uri(BeerRouterConfiguration.BEER_V2_URL + "/" + beerId + "?showInventory=true")
+                                    .accept(MediaType.APPLICATION_JSON)
+                                    .retrieve()
+                                    .bodyToMono(BeerDto.class)
+                                    .block();
+
+        assertThat(reloaded.getQuantityOnHand()).isEqualTo(0);
+    }
+
+    private ResponseEntity<Void> adjust(Integer beerId, InventoryAdjustment.Type type, int quantity) {
+        return webClient.post()
+                        .uri(BeerRouterConfiguration.BEER_V2_URL + "/" + beerId + "/inventory")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(InventoryAdjustment.builder()
+                                                      .type(type)
+                                                      .quantity(quantity)
+                                                      .build())
+                        .retrieve()
+                        .toBodilessEntity()
+                        .block();
+    }
+
     @Test
     void testDeleteBeerById() throws InterruptedException {
         Integer beerId = 3;
@@ -292,4 +881,45 @@ public class WebClientV2IT {
                      .toBodilessEntity().block();
         });
     }
+
+    @Test
+    void deleteBeersByIds() {
+        List<BeerDto> newBeers = List.of(BeerDto.builder().beerName("Cleanup One").beerStyle("LAGER").price(new BigDecimal("3.10")).upc("0083783375282").build(),
+                                         BeerDto.builder().beerName("Cleanup Two").beerStyle("LAGER").price(new BigDecimal("3.20")).upc("0083783375299").build());
+
+        List<Integer> ids = webClient.post()
+                                     .uri(BeerRouterConfiguration.BEER_V2_BULK)
+                                     .contentType(MediaType.APPLICATION_JSON)
+                                     .bodyValue(newBeers)
+                                     .retrieve()
+                                     .bodyToFlux(BeerBulkResult.class)
+                                     .map(BeerBulkResult::getId)
+                                     .collectList()
+                                     .block();
+
+        // the first is cached, the second is not
+        webClient.get()
+                 .uri(BeerRouterConfiguration.BEER_V2_URL + "/" + ids.get(0))
+                 .accept(MediaType.APPLICATION_JSON)
+                 .retrieve()
+                 .bodyToMono(BeerDto.class)
+                 .block();
+
+        BeerBulkDeleteResult result = webClient.delete()
+                                               .uri(BeerRouterConfiguration.BEER_V2_URL + "?ids=" + ids.get(0) + "," + ids.get(1) + ",999999")
+                                               .accept(MediaType.APPLICATION_JSON)
+                                               .retrieve()
+                                               .bodyToMono(BeerBulkDeleteResult.class)
+                                               .block();
+
+        assertThat(result.getRequested()).isEqualTo(3);
+        assertThat(result.getDeleted()).isEqualTo(2);
+
+        ids.forEach(id -> assertThrows(WebClientResponseException.NotFound.class, () -> webClient.get()
+                                                                                               .uri(BeerRouterConfiguration.BEER_V2_URL + "/" + id)
+                                                                                               .accept(MediaType.APPLICATION_JSON)
+                                                                                               .retrieve()
+                                                                                               .bodyToMono(BeerDto.class)
+                                                                                               .block()));
+    }
 }